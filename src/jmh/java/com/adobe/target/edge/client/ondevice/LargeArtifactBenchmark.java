@@ -0,0 +1,191 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice;
+
+import com.adobe.target.delivery.v1.model.Address;
+import com.adobe.target.delivery.v1.model.ChannelType;
+import com.adobe.target.delivery.v1.model.Context;
+import com.adobe.target.delivery.v1.model.ExecuteRequest;
+import com.adobe.target.delivery.v1.model.MboxRequest;
+import com.adobe.target.delivery.v1.model.PrefetchRequest;
+import com.adobe.target.delivery.v1.model.ViewRequest;
+import com.adobe.target.delivery.v1.model.VisitorId;
+import com.adobe.target.edge.client.ClientConfig;
+import com.adobe.target.edge.client.model.DecisioningMethod;
+import com.adobe.target.edge.client.model.TargetDeliveryRequest;
+import com.adobe.target.edge.client.model.TargetDeliveryRequestBuilder;
+import com.adobe.target.edge.client.model.TargetDeliveryResponse;
+import com.adobe.target.edge.client.model.ondevice.OnDeviceDecisioningRuleSet;
+import com.adobe.target.edge.client.service.TelemetryService;
+import com.adobe.target.edge.client.service.VisitorProvider;
+import com.adobe.target.edge.client.utils.ArtifactGenerator;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how artifact parsing and per-request latency scale with the size of a synthetic artifact
+ * built by {@link ArtifactGenerator}. The artifact is parsed both from JSON and from its {@link
+ * CompiledArtifact} form, read from off-heap memory as it would be from a mapped file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LargeArtifactBenchmark {
+
+  private static final String ORG_ID = "0DD934B85278256B0A490D44@AdobeOrg";
+  private static final int VISITORS = 64;
+  private static final int PREFETCH_MBOXES = 50;
+
+  @Param({"10", "100", "1000"})
+  public int mboxes;
+
+  @Param({"10"})
+  public int rulesPerLocation;
+
+  @Param({"3"})
+  public int conditionDepth;
+
+  private byte[] artifact;
+  private ByteBuffer compiledArtifact;
+  private OnDeviceDecisioningService service;
+  private TargetDeliveryRequest[] singleMbox;
+  private TargetDeliveryRequest[] prefetchMboxes;
+  private TargetDeliveryRequest[] allViews;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    artifact =
+        new ArtifactGenerator()
+            .mboxes(mboxes)
+            .views(Math.max(1, mboxes / 10))
+            .rulesPerLocation(rulesPerLocation)
+            .conditionDepth(conditionDepth)
+            .responseTokens(10)
+            .toBytes();
+    byte[] compiled = CompiledArtifact.compile(artifact, null);
+    compiledArtifact = ByteBuffer.allocateDirect(compiled.length);
+    compiledArtifact.put(compiled).flip();
+
+    VisitorProvider.init(ORG_ID);
+    ClientConfig clientConfig =
+        ClientConfig.builder()
+            .client("benchmark-generated-" + mboxes + "-" + rulesPerLocation + "-" + conditionDepth)
+            .organizationId(ORG_ID)
+            .defaultDecisioningMethod(DecisioningMethod.ON_DEVICE)
+            .onDeviceArtifactPayload(artifact)
+            .telemetryEnabled(false)
+            .build();
+    service =
+        new OnDeviceDecisioningService(
+            clientConfig, new NoOpTargetService(), new TelemetryService(clientConfig));
+
+    Random random = new Random(7);
+    singleMbox = new TargetDeliveryRequest[VISITORS];
+    prefetchMboxes = new TargetDeliveryRequest[VISITORS];
+    allViews = new TargetDeliveryRequest[VISITORS];
+    for (int i = 0; i < VISITORS; i++) {
+      VisitorId visitorId =
+          new VisitorId().tntId(new UUID(random.nextLong(), random.nextLong()) + ".35_0");
+      String mbox = ArtifactGenerator.mboxName(random.nextInt(mboxes));
+      singleMbox[i] =
+          request(visitorId)
+              .execute(new ExecuteRequest().addMboxesItem(new MboxRequest().index(0).name(mbox)))
+              .build();
+      PrefetchRequest prefetch = new PrefetchRequest();
+      for (int index = 0; index < PREFETCH_MBOXES; index++) {
+        prefetch.addMboxesItem(
+            new MboxRequest()
+                .index(index)
+                .name(ArtifactGenerator.mboxName(random.nextInt(mboxes))));
+      }
+      prefetchMboxes[i] = request(visitorId).prefetch(prefetch).build();
+      allViews[i] =
+          request(visitorId)
+              .prefetch(new PrefetchRequest().addViewsItem(new ViewRequest()))
+              .build();
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    service.stop();
+  }
+
+  @Benchmark
+  public OnDeviceDecisioningRuleSet parse() {
+    OnDeviceDecisioningRuleSet ruleSet = RuleSetParser.parse(artifact);
+    ruleSet.compile();
+    return ruleSet;
+  }
+
+  @Benchmark
+  public OnDeviceDecisioningRuleSet parseCompiled() {
+    OnDeviceDecisioningRuleSet ruleSet = CompiledArtifact.read(compiledArtifact).getRuleSet();
+    ruleSet.compile();
+    return ruleSet;
+  }
+
+  @Benchmark
+  public TargetDeliveryResponse singleMbox() {
+    return service.executeRequest(singleMbox[nextVisitor()]);
+  }
+
+  @Benchmark
+  public TargetDeliveryResponse prefetchMboxes() {
+    return service.executeRequest(prefetchMboxes[nextVisitor()]);
+  }
+
+  @Benchmark
+  public TargetDeliveryResponse allViews() {
+    return service.executeRequest(allViews[nextVisitor()]);
+  }
+
+  private int nextVisitor() {
+    int visitor = next;
+    next = (next + 1) % VISITORS;
+    return visitor;
+  }
+
+  private static TargetDeliveryRequestBuilder request(VisitorId visitorId) {
+    Context context =
+        new Context()
+            .channel(ChannelType.WEB)
+            .userAgent(
+                "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_4) AppleWebKit/605.1.15 "
+                    + "(KHTML, like Gecko) Version/13.1 Safari/605.1.15")
+            .address(new Address().url("https://www.example.com/products/?category=shoes"));
+    return TargetDeliveryRequest.builder()
+        .context(context)
+        .id(visitorId)
+        .decisioningMethod(DecisioningMethod.ON_DEVICE);
+  }
+}
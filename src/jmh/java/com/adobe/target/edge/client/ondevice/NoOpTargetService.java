@@ -0,0 +1,47 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice;
+
+import com.adobe.target.edge.client.http.ResponseStatus;
+import com.adobe.target.edge.client.model.TargetDeliveryRequest;
+import com.adobe.target.edge.client.model.TargetDeliveryResponse;
+import com.adobe.target.edge.client.service.TargetService;
+import java.util.concurrent.CompletableFuture;
+
+/** Accepts notifications and never completes cluster lookups, so nothing leaves the process. */
+final class NoOpTargetService implements TargetService {
+
+  @Override
+  public TargetDeliveryResponse executeRequest(TargetDeliveryRequest deliveryRequest) {
+    return null;
+  }
+
+  @Override
+  public CompletableFuture<TargetDeliveryResponse> executeRequestAsync(
+      TargetDeliveryRequest deliveryRequest) {
+    return new CompletableFuture<>();
+  }
+
+  @Override
+  public ResponseStatus executeNotification(TargetDeliveryRequest deliveryRequest) {
+    return null;
+  }
+
+  @Override
+  public CompletableFuture<ResponseStatus> executeNotificationAsync(
+      TargetDeliveryRequest deliveryRequest) {
+    return CompletableFuture.completedFuture(null);
+  }
+
+  @Override
+  public void close() {}
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice;
+
+import com.adobe.target.delivery.v1.model.Address;
+import com.adobe.target.delivery.v1.model.ChannelType;
+import com.adobe.target.delivery.v1.model.Context;
+import com.adobe.target.delivery.v1.model.ExecuteRequest;
+import com.adobe.target.delivery.v1.model.Geo;
+import com.adobe.target.delivery.v1.model.MboxRequest;
+import com.adobe.target.delivery.v1.model.PrefetchRequest;
+import com.adobe.target.delivery.v1.model.Trace;
+import com.adobe.target.delivery.v1.model.ViewRequest;
+import com.adobe.target.delivery.v1.model.VisitorId;
+import com.adobe.target.edge.client.ClientConfig;
+import com.adobe.target.edge.client.http.JacksonObjectMapper;
+import com.adobe.target.edge.client.model.DecisioningMethod;
+import com.adobe.target.edge.client.model.TargetDeliveryRequest;
+import com.adobe.target.edge.client.model.TargetDeliveryRequestBuilder;
+import com.adobe.target.edge.client.model.TargetDeliveryResponse;
+import com.adobe.target.edge.client.model.ondevice.OnDeviceDecisioningRuleSet;
+import com.adobe.target.edge.client.service.TargetService;
+import com.adobe.target.edge.client.service.TelemetryService;
+import com.adobe.target.edge.client.service.VisitorProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link OnDeviceDecisioningService#executeRequest} against the bundled decisioning
+ * artifacts. The artifact is supplied as the on-device payload and the target service is a no-op,
+ * so no request leaves the process. Run with {@code ./gradlew jmh}, which also reports the
+ * allocation rate through the gc profiler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OnDeviceDecisioningServiceBenchmark {
+
+  private static final String ORG_ID = "0DD934B85278256B0A490D44@AdobeOrg";
+  private static final int VISITORS = 64;
+  private static final int PREFETCH_MBOXES = 50;
+
+  @Param({
+    "DECISIONING_PAYLOAD_ADDRESS.json",
+    "DECISIONING_PAYLOAD_ALL_MATCHES.json",
+    "DECISIONING_PAYLOAD_ATTRIBUTES.json",
+    "DECISIONING_PAYLOAD_BROWSER.json",
+    "DECISIONING_PAYLOAD_CAMPAIGN_MACROS.json",
+    "DECISIONING_PAYLOAD_GLOBAL_MBOX.json",
+    "DECISIONING_PAYLOAD_PAGELOAD_VEC_AB.json",
+    "DECISIONING_PAYLOAD_PAGELOAD_VEC_XT.json",
+    "DECISIONING_PAYLOAD_PARAMS.json",
+    "DECISIONING_PAYLOAD_PRIORITIES.json",
+    "DECISIONING_PAYLOAD_RECOMMENDATIONS.json",
+    "DECISIONING_PAYLOAD_TIMEFRAME.json",
+    "DECISIONING_PAYLOAD_VIEWS.json",
+    "DECISIONING_ARTIFACT_GEO.json"
+  })
+  public String artifact;
+
+  private OnDeviceDecisioningService service;
+  private TargetDeliveryRequest[] singleMbox;
+  private TargetDeliveryRequest[] prefetchMboxes;
+  private TargetDeliveryRequest[] allViews;
+  private TargetDeliveryRequest[] geo;
+  private TargetDeliveryRequest[] trace;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    byte[] payload = readResource(artifact);
+    OnDeviceDecisioningRuleSet ruleSet =
+        new JacksonObjectMapper().getMapper().readValue(payload, OnDeviceDecisioningRuleSet.class);
+    List<String> mboxNames = new ArrayList<>(ruleSet.getRules().getMboxes().keySet());
+    if (mboxNames.isEmpty()) {
+      mboxNames.add("none");
+    }
+
+    VisitorProvider.init(ORG_ID);
+    ClientConfig clientConfig =
+        ClientConfig.builder()
+            .client("benchmark-" + artifact)
+            .organizationId(ORG_ID)
+            .defaultDecisioningMethod(DecisioningMethod.ON_DEVICE)
+            .onDeviceArtifactPayload(payload)
+            .telemetryEnabled(false)
+            .build();
+    TargetService targetService = new NoOpTargetService();
+    service =
+        new OnDeviceDecisioningService(
+            clientConfig, targetService, new TelemetryService(clientConfig));
+
+    String mbox = mboxNames.get(0);
+    singleMbox = requests(() -> request().execute(executeMbox(mbox)));
+    prefetchMboxes =
+        requests(
+            () -> {
+              PrefetchRequest prefetch = new PrefetchRequest();
+              for (int i = 0; i < PREFETCH_MBOXES; i++) {
+                prefetch.addMboxesItem(
+                    new MboxRequest().index(i).name(mboxNames.get(i % mboxNames.size())));
+              }
+              return request().prefetch(prefetch);
+            });
+    allViews =
+        requests(() -> request().prefetch(new PrefetchRequest().addViewsItem(new ViewRequest())));
+    geo =
+        requests(
+            () ->
+                request(
+                        new Geo()
+                            .city("SAN FRANCISCO")
+                            .stateCode("CA")
+                            .countryCode("US")
+                            .latitude(37.75f)
+                            .longitude(-122.4f))
+                    .execute(executeMbox(mbox)));
+    trace =
+        requests(
+            () ->
+                request()
+                    .trace(new Trace().authorizationToken("benchmark"))
+                    .execute(executeMbox(mbox)));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    service.stop();
+  }
+
+  @Benchmark
+  public TargetDeliveryResponse singleMbox() {
+    return service.executeRequest(singleMbox[nextVisitor()]);
+  }
+
+  @Benchmark
+  public TargetDeliveryResponse prefetchMboxes() {
+    return service.executeRequest(prefetchMboxes[nextVisitor()]);
+  }
+
+  @Benchmark
+  public TargetDeliveryResponse allViews() {
+    return service.executeRequest(allViews[nextVisitor()]);
+  }
+
+  @Benchmark
+  public TargetDeliveryResponse geo() {
+    return service.executeRequest(geo[nextVisitor()]);
+  }
+
+  @Benchmark
+  public TargetDeliveryResponse trace() {
+    return service.executeRequest(trace[nextVisitor()]);
+  }
+
+  private int nextVisitor() {
+    int visitor = next;
+    next = (next + 1) % VISITORS;
+    return visitor;
+  }
+
+  /** Builds one request per visitor so allocation and caches see a realistic spread of ids. */
+  private static TargetDeliveryRequest[] requests(Supplier<TargetDeliveryRequestBuilder> builder) {
+    Random random = new Random(7);
+    TargetDeliveryRequest[] requests = new TargetDeliveryRequest[VISITORS];
+    for (int i = 0; i < VISITORS; i++) {
+      String tntId = new UUID(random.nextLong(), random.nextLong()).toString() + ".35_0";
+      requests[i] = builder.get().id(new VisitorId().tntId(tntId)).build();
+    }
+    return requests;
+  }
+
+  private static TargetDeliveryRequestBuilder request() {
+    return request(null);
+  }
+
+  private static TargetDeliveryRequestBuilder request(Geo geo) {
+    Context context =
+        new Context()
+            .channel(ChannelType.WEB)
+            .userAgent(
+                "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_4) AppleWebKit/605.1.15 "
+                    + "(KHTML, like Gecko) Version/13.1 Safari/605.1.15")
+            .address(new Address().url("https://www.example.com/products/?sku=12345#reviews"))
+            .geo(geo);
+    return TargetDeliveryRequest.builder()
+        .context(context)
+        .decisioningMethod(DecisioningMethod.ON_DEVICE);
+  }
+
+  private static ExecuteRequest executeMbox(String name) {
+    return new ExecuteRequest().addMboxesItem(new MboxRequest().index(0).name(name));
+  }
+
+  private static byte[] readResource(String name) throws IOException {
+    try (InputStream in =
+        OnDeviceDecisioningServiceBenchmark.class.getClassLoader().getResourceAsStream(name)) {
+      if (in == null) {
+        throw new IOException("Missing benchmark artifact " + name);
+      }
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        out.write(buffer, 0, read);
+      }
+      return out.toByteArray();
+    }
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice;
+
+import com.adobe.target.edge.client.model.ondevice.OnDeviceDecisioningRuleSet;
+import com.adobe.target.edge.client.utils.ArtifactGenerator;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the heap retained by a rule set parsed from a synthetic artifact built by {@link
+ * ArtifactGenerator}, and the extra heap its compiled form retains. Sizes are the growth of the
+ * used heap after a forced collection, reported in bytes as the {@code parsedBytes} and {@code
+ * compiledBytes} secondary results. JMH sums these counters over iterations and forks, so each fork
+ * takes a single measurement after warming up; keep {@code -i 1 -f 1} when overriding the defaults
+ * from the command line.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 1)
+@Fork(
+    value = 1,
+    jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class RuleSetFootprintBenchmark {
+
+  private static final int GC_ROUNDS = 5;
+
+  @Param({"10", "100", "1000"})
+  public int mboxes;
+
+  @Param({"10"})
+  public int rulesPerLocation;
+
+  @Param({"3"})
+  public int conditionDepth;
+
+  private byte[] artifact;
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Footprint {
+
+    public long parsedBytes;
+    public long compiledBytes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      parsedBytes = 0;
+      compiledBytes = 0;
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    artifact =
+        new ArtifactGenerator()
+            .mboxes(mboxes)
+            .views(Math.max(1, mboxes / 10))
+            .rulesPerLocation(rulesPerLocation)
+            .conditionDepth(conditionDepth)
+            .responseTokens(10)
+            .toBytes();
+  }
+
+  @Benchmark
+  public OnDeviceDecisioningRuleSet parseAndCompile(Footprint footprint) {
+    long before = usedHeap();
+    OnDeviceDecisioningRuleSet ruleSet = RuleSetParser.parse(artifact);
+    long parsed = usedHeap();
+    ruleSet.compile();
+    long compiled = usedHeap();
+    footprint.parsedBytes = parsed - before;
+    footprint.compiledBytes = compiled - parsed;
+    return ruleSet;
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    long used = Long.MAX_VALUE;
+    for (int i = 0; i < GC_ROUNDS; i++) {
+      System.gc();
+      long next = runtime.totalMemory() - runtime.freeMemory();
+      if (next >= used) {
+        break;
+      }
+      used = next;
+    }
+    return used;
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares hashing the concatenated device id with hashing its segments in sequence, and with
+ * memoizing allocations per activity across the rules of a request. Setup fails if the streaming
+ * allocation differs from the concatenated one for any generated visitor.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AllocationUtilsBenchmark {
+
+  private static final String CLIENT_ID = "someClientId";
+  private static final String SALT = "0";
+  private static final int VISITORS = 4096;
+  private static final int ACTIVITIES = 8;
+  private static final int RULES_PER_ACTIVITY = 4;
+
+  private String[] visitorIds;
+  private String[] activityIds;
+  private int next;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(7);
+    visitorIds = new String[VISITORS];
+    for (int i = 0; i < VISITORS; i++) {
+      visitorIds[i] = new UUID(random.nextLong(), random.nextLong()).toString();
+    }
+    activityIds = new String[ACTIVITIES];
+    for (int i = 0; i < ACTIVITIES; i++) {
+      activityIds[i] = String.valueOf(100_000 + random.nextInt(900_000));
+    }
+    for (String visitorId : visitorIds) {
+      for (String activityId : activityIds) {
+        double expected =
+            AllocationUtils.calculateAllocation(
+                AllocationUtils.getDeviceId(CLIENT_ID, activityId, visitorId, SALT));
+        double actual = AllocationUtils.calculateAllocation(CLIENT_ID, activityId, visitorId, SALT);
+        if (Double.doubleToRawLongBits(expected) != Double.doubleToRawLongBits(actual)) {
+          throw new IllegalStateException(
+              "Allocation mismatch for activity " + activityId + " and visitor " + visitorId);
+        }
+      }
+    }
+  }
+
+  @Benchmark
+  public double concatenated() {
+    String visitorId = nextVisitor();
+    double sum = 0;
+    for (String activityId : activityIds) {
+      for (int rule = 0; rule < RULES_PER_ACTIVITY; rule++) {
+        sum +=
+            AllocationUtils.calculateAllocation(
+                AllocationUtils.getDeviceId(CLIENT_ID, activityId, visitorId, SALT));
+      }
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public double streaming() {
+    String visitorId = nextVisitor();
+    double sum = 0;
+    for (String activityId : activityIds) {
+      for (int rule = 0; rule < RULES_PER_ACTIVITY; rule++) {
+        sum += AllocationUtils.calculateAllocation(CLIENT_ID, activityId, visitorId, SALT);
+      }
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public double memoized() {
+    String visitorId = nextVisitor();
+    Map<String, Double> allocations = new HashMap<>();
+    double sum = 0;
+    for (String activityId : activityIds) {
+      for (int rule = 0; rule < RULES_PER_ACTIVITY; rule++) {
+        Double allocation = allocations.get(activityId);
+        if (allocation == null) {
+          allocation = AllocationUtils.calculateAllocation(CLIENT_ID, activityId, visitorId, SALT);
+          allocations.put(activityId, allocation);
+        }
+        sum += allocation;
+      }
+    }
+    return sum;
+  }
+
+  private String nextVisitor() {
+    String visitorId = visitorIds[next];
+    next = (next + 1) % VISITORS;
+    return visitorId;
+  }
+}
@@ -16,6 +16,10 @@ import static com.adobe.target.edge.client.utils.StringUtils.isNotEmpty;
 import com.adobe.target.edge.client.exception.TargetExceptionHandler;
 import com.adobe.target.edge.client.model.DecisioningMethod;
 import com.adobe.target.edge.client.model.ondevice.OnDeviceDecisioningHandler;
+import com.adobe.target.edge.client.ondevice.FileRuleLoader;
+import com.adobe.target.edge.client.ondevice.InMemoryRuleLoader;
+import com.adobe.target.edge.client.ondevice.RuleLoader;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Objects;
 import org.apache.http.HttpRequestInterceptor;
@@ -53,6 +57,9 @@ public class ClientConfig {
   private List<String> onDeviceAllMatchingRulesMboxes;
   private HttpClient httpClient;
   private boolean shouldArtifactRequestBypassProxyCache;
+  private int onDeviceUserAgentCacheSize;
+  private Path onDeviceArtifactCacheDirectory;
+  private RuleLoader onDeviceRuleLoader;
 
   public String getClient() {
     return client;
@@ -161,6 +168,14 @@ public class ClientConfig {
     return onDeviceAllMatchingRulesMboxes;
   }
 
+  public Path getOnDeviceArtifactCacheDirectory() {
+    return onDeviceArtifactCacheDirectory;
+  }
+
+  public RuleLoader getOnDeviceRuleLoader() {
+    return onDeviceRuleLoader;
+  }
+
   public boolean isOnDeviceDecisioningEnabled() {
     return defaultDecisioningMethod != DecisioningMethod.SERVER_SIDE;
   }
@@ -177,6 +192,10 @@ public class ClientConfig {
     return shouldArtifactRequestBypassProxyCache;
   }
 
+  public int getOnDeviceUserAgentCacheSize() {
+    return onDeviceUserAgentCacheSize;
+  }
+
   public static final class ClientConfigBuilder {
     private static final String CLUSTER_PREFIX = "mboxedge";
     private static final String DELIVERY_PATH_SUFFIX = "/rest/v1/delivery";
@@ -208,6 +227,9 @@ public class ClientConfig {
     private List<String> onDeviceAllMatchingRulesMboxes;
     private HttpClient httpClient;
     private boolean shouldArtifactRequestBypassProxyCache = false;
+    private int onDeviceUserAgentCacheSize = 1000;
+    private Path onDeviceArtifactCacheDirectory;
+    private RuleLoader onDeviceRuleLoader;
 
     private ClientConfigBuilder() {}
 
@@ -527,6 +549,45 @@ public class ClientConfig {
       return this;
     }
 
+    /**
+     * On Device Decisioning - number of distinct user agents whose parsed browser and platform are
+     * cached, 0 to parse the user agent of every request
+     *
+     * @param onDeviceUserAgentCacheSize
+     * @return ClientConfigBuilder
+     */
+    public ClientConfigBuilder onDeviceUserAgentCacheSize(int onDeviceUserAgentCacheSize) {
+      this.onDeviceUserAgentCacheSize = onDeviceUserAgentCacheSize;
+      return this;
+    }
+
+    /**
+     * On Device Decisioning - directory where every validated artifact is saved along with its
+     * ETag. On start the saved artifact is used right away and then revalidated with the server.
+     * Not set by default
+     *
+     * @param onDeviceArtifactCacheDirectory
+     * @return ClientConfigBuilder
+     */
+    public ClientConfigBuilder onDeviceArtifactCacheDirectory(Path onDeviceArtifactCacheDirectory) {
+      this.onDeviceArtifactCacheDirectory = onDeviceArtifactCacheDirectory;
+      return this;
+    }
+
+    /**
+     * On Device Decisioning - source of the artifact. Defaults to polling the artifact location on
+     * <b>onDeviceConfigHostname</b>. {@link FileRuleLoader} reloads the artifact from a local file
+     * whenever it changes and {@link InMemoryRuleLoader} installs artifacts pushed by the
+     * application
+     *
+     * @param onDeviceRuleLoader
+     * @return ClientConfigBuilder
+     */
+    public ClientConfigBuilder onDeviceRuleLoader(RuleLoader onDeviceRuleLoader) {
+      this.onDeviceRuleLoader = onDeviceRuleLoader;
+      return this;
+    }
+
     public ClientConfig build() {
       ClientConfig clientConfig = new ClientConfig();
       Objects.requireNonNull(organizationId, "organization id cannot be null");
@@ -562,6 +623,9 @@ public class ClientConfig {
       clientConfig.httpClient = this.httpClient;
       clientConfig.shouldArtifactRequestBypassProxyCache =
           this.shouldArtifactRequestBypassProxyCache;
+      clientConfig.onDeviceUserAgentCacheSize = this.onDeviceUserAgentCacheSize;
+      clientConfig.onDeviceArtifactCacheDirectory = this.onDeviceArtifactCacheDirectory;
+      clientConfig.onDeviceRuleLoader = this.onDeviceRuleLoader;
       return clientConfig;
     }
   }
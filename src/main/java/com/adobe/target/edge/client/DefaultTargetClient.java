@@ -23,6 +23,7 @@ import com.adobe.target.edge.client.model.DecisioningMethod;
 import com.adobe.target.edge.client.model.TargetAttributesResponse;
 import com.adobe.target.edge.client.model.TargetDeliveryRequest;
 import com.adobe.target.edge.client.model.TargetDeliveryResponse;
+import com.adobe.target.edge.client.model.ondevice.OnDeviceDecisioningEvaluation;
 import com.adobe.target.edge.client.ondevice.OnDeviceDecisioningService;
 import com.adobe.target.edge.client.service.DefaultTargetService;
 import com.adobe.target.edge.client.service.TargetService;
@@ -62,10 +63,13 @@ public class DefaultTargetClient implements TargetClient {
       TargetDeliveryResponse targetDeliveryResponse;
       DecisioningMethod decisioningMethod = getDecisioningMethod(request);
       updatePropertyToken(request);
+      OnDeviceDecisioningEvaluation localEvaluation = null;
+      if (decisioningMethod == DecisioningMethod.HYBRID) {
+        localEvaluation = localService.evaluateLocalExecution(request);
+      }
       if (decisioningMethod == DecisioningMethod.ON_DEVICE
-          || (decisioningMethod == DecisioningMethod.HYBRID
-              && localService.evaluateLocalExecution(request).isAllLocal())) {
-        targetDeliveryResponse = localService.executeRequest(request);
+          || (localEvaluation != null && localEvaluation.isAllLocal())) {
+        targetDeliveryResponse = localService.executeRequest(request, localEvaluation);
       } else {
         targetDeliveryResponse = targetService.executeRequest(request);
       }
@@ -85,10 +89,13 @@ public class DefaultTargetClient implements TargetClient {
       CompletableFuture<TargetDeliveryResponse> targetDeliveryResponse;
       DecisioningMethod decisioningMethod = getDecisioningMethod(request);
       updatePropertyToken(request);
+      OnDeviceDecisioningEvaluation localEvaluation = null;
+      if (decisioningMethod == DecisioningMethod.HYBRID) {
+        localEvaluation = localService.evaluateLocalExecution(request);
+      }
       if (decisioningMethod == DecisioningMethod.ON_DEVICE
-          || (decisioningMethod == DecisioningMethod.HYBRID
-              && localService.evaluateLocalExecution(request).isAllLocal())) {
-        targetDeliveryResponse = localService.executeRequestAsync(request);
+          || (localEvaluation != null && localEvaluation.isAllLocal())) {
+        targetDeliveryResponse = localService.executeRequestAsync(request, localEvaluation);
       } else {
         targetDeliveryResponse = targetService.executeRequestAsync(request);
       }
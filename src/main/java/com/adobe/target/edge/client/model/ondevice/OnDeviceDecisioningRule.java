@@ -11,9 +11,19 @@
  */
 package com.adobe.target.edge.client.model.ondevice;
 
+import com.adobe.target.edge.client.ondevice.CompiledCondition;
+import com.adobe.target.edge.client.ondevice.RuleConsequence;
+import com.adobe.target.edge.client.utils.CollectionUtils;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
+/**
+ * Rule of an on-device decisioning artifact. Rules are shared by every request evaluated against
+ * the rule set, so the values read from the artifact are stored as unmodifiable copies.
+ */
 public class OnDeviceDecisioningRule {
 
   private String ruleKey;
@@ -23,6 +33,10 @@ public class OnDeviceDecisioningRule {
   private Map<String, Object> consequence;
   private Map<String, Object> meta;
 
+  private volatile CompiledCondition compiledCondition;
+  private volatile RuleConsequence ruleConsequence;
+  private volatile int contentHash;
+
   public OnDeviceDecisioningRule() {}
 
   public String getRuleKey() {
@@ -41,14 +55,75 @@ public class OnDeviceDecisioningRule {
     return condition;
   }
 
+  @JsonIgnore
+  public CompiledCondition getCompiledCondition() {
+    CompiledCondition compiled = compiledCondition;
+    if (compiled == null) {
+      compiled = CompiledCondition.compile(condition);
+      compiledCondition = compiled;
+    }
+    return compiled;
+  }
+
   public Map<String, Object> getConsequence() {
     return consequence;
   }
 
+  @JsonIgnore
+  public RuleConsequence getRuleConsequence() {
+    RuleConsequence result = ruleConsequence;
+    if (result == null) {
+      result = RuleConsequence.from(consequence, meta);
+      ruleConsequence = result;
+    }
+    return result;
+  }
+
   public Map<String, Object> getMeta() {
     return meta;
   }
 
+  /** @return hash of everything read from the artifact, used to find unchanged rules */
+  int contentHash() {
+    int hash = contentHash;
+    if (hash == 0) {
+      hash = Objects.hash(ruleKey, activityId, propertyTokens, condition, consequence, meta);
+      contentHash = hash;
+    }
+    return hash;
+  }
+
+  /** @return whether the other rule was read from an identical artifact rule */
+  boolean hasSameContent(OnDeviceDecisioningRule other) {
+    return contentHash() == other.contentHash()
+        && Objects.equals(ruleKey, other.ruleKey)
+        && Objects.equals(activityId, other.activityId)
+        && Objects.equals(propertyTokens, other.propertyTokens)
+        && Objects.equals(condition, other.condition)
+        && Objects.equals(consequence, other.consequence)
+        && Objects.equals(meta, other.meta);
+  }
+
+  @JsonProperty("propertyTokens")
+  private void setPropertyTokens(List<String> propertyTokens) {
+    this.propertyTokens = CollectionUtils.immutableListCopy(propertyTokens);
+  }
+
+  @JsonProperty("condition")
+  private void setCondition(Object condition) {
+    this.condition = CollectionUtils.immutableCopy(condition);
+  }
+
+  @JsonProperty("consequence")
+  private void setConsequence(Map<String, Object> consequence) {
+    this.consequence = CollectionUtils.immutableMapCopy(consequence);
+  }
+
+  @JsonProperty("meta")
+  private void setMeta(Map<String, Object> meta) {
+    this.meta = CollectionUtils.immutableMapCopy(meta);
+  }
+
   @Override
   public String toString() {
     return "LocalDecisioningRule{"
@@ -11,9 +11,20 @@
  */
 package com.adobe.target.edge.client.model.ondevice;
 
+import com.adobe.target.edge.client.utils.CollectionUtils;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+/**
+ * On-device decisioning artifact. A rule set is shared by every request evaluated against it and is
+ * not modified once deserialized; requests build their output separately.
+ */
 public class OnDeviceDecisioningRuleSet {
 
   private String version;
@@ -27,6 +38,12 @@ public class OnDeviceDecisioningRuleSet {
   private OnDeviceDecisioningRules rules;
   private Map<String, Object> meta;
 
+  private volatile Set<String> remoteMboxSet;
+  private volatile Set<String> remoteViewSet;
+  private volatile Set<String> localMboxSet;
+  private volatile Set<String> localViewSet;
+  private volatile Set<String> responseTokenSet;
+
   public OnDeviceDecisioningRuleSet() {}
 
   public String getVersion() {
@@ -69,6 +86,137 @@ public class OnDeviceDecisioningRuleSet {
     return meta;
   }
 
+  @JsonIgnore
+  public Set<String> getRemoteMboxSet() {
+    Set<String> result = remoteMboxSet;
+    if (result == null) {
+      result = toSet(remoteMboxes);
+      remoteMboxSet = result;
+    }
+    return result;
+  }
+
+  @JsonIgnore
+  public Set<String> getRemoteViewSet() {
+    Set<String> result = remoteViewSet;
+    if (result == null) {
+      result = toSet(remoteViews);
+      remoteViewSet = result;
+    }
+    return result;
+  }
+
+  @JsonIgnore
+  public Set<String> getLocalMboxSet() {
+    Set<String> result = localMboxSet;
+    if (result == null) {
+      result = toSet(localMboxes);
+      localMboxSet = result;
+    }
+    return result;
+  }
+
+  @JsonIgnore
+  public Set<String> getLocalViewSet() {
+    Set<String> result = localViewSet;
+    if (result == null) {
+      result = toSet(localViews);
+      localViewSet = result;
+    }
+    return result;
+  }
+
+  @JsonIgnore
+  public Set<String> getResponseTokenSet() {
+    Set<String> result = responseTokenSet;
+    if (result == null) {
+      result = toSet(responseTokens);
+      responseTokenSet = result;
+    }
+    return result;
+  }
+
+  /**
+   * @return top-level request context keys read by the rules of this set, or null when any key may
+   *     be read
+   */
+  @JsonIgnore
+  public Set<String> getContextKeys() {
+    return rules == null ? Collections.emptySet() : rules.getContextKeys();
+  }
+
+  private static Set<String> toSet(Collection<String> values) {
+    if (values == null || values.isEmpty()) {
+      return Collections.emptySet();
+    }
+    return Collections.unmodifiableSet(new HashSet<>(values));
+  }
+
+  /**
+   * Prepares the rules of this set for evaluation and computes its lookup sets, so that the work is
+   * done once when the rule set is installed rather than on every request.
+   */
+  public void compile() {
+    computeSets();
+    if (rules != null) {
+      rules.compile();
+    }
+  }
+
+  /**
+   * Like {@link #compile()}, but reuses the compiled rules and indexes of the previous rule set
+   * where they did not change.
+   *
+   * @param previous rule set currently in use, may be null
+   * @return number of rules reused from the previous rule set
+   */
+  public int compile(OnDeviceDecisioningRuleSet previous) {
+    if (rules == null || previous == null) {
+      compile();
+      return 0;
+    }
+    computeSets();
+    return rules.compile(previous.getRules());
+  }
+
+  private void computeSets() {
+    getRemoteMboxSet();
+    getRemoteViewSet();
+    getLocalMboxSet();
+    getLocalViewSet();
+    getResponseTokenSet();
+  }
+
+  @JsonProperty("remoteMboxes")
+  private void setRemoteMboxes(List<String> remoteMboxes) {
+    this.remoteMboxes = CollectionUtils.immutableListCopy(remoteMboxes);
+  }
+
+  @JsonProperty("remoteViews")
+  private void setRemoteViews(List<String> remoteViews) {
+    this.remoteViews = CollectionUtils.immutableListCopy(remoteViews);
+  }
+
+  @JsonProperty("localMboxes")
+  private void setLocalMboxes(List<String> localMboxes) {
+    this.localMboxes = CollectionUtils.immutableListCopy(localMboxes);
+  }
+
+  @JsonProperty("localViews")
+  private void setLocalViews(List<String> localViews) {
+    this.localViews = CollectionUtils.immutableListCopy(localViews);
+  }
+
+  @JsonProperty("responseTokens")
+  private void setResponseTokens(List<String> responseTokens) {
+    this.responseTokens = CollectionUtils.immutableListCopy(responseTokens);
+  }
+
+  @JsonProperty("meta")
+  private void setMeta(Map<String, Object> meta) {
+    this.meta = CollectionUtils.immutableMapCopy(meta);
+  }
+
   @Override
   public String toString() {
     return "LocalDecisioningRuleSet{"
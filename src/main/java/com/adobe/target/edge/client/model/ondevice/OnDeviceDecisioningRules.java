@@ -11,13 +11,31 @@
  */
 package com.adobe.target.edge.client.model.ondevice;
 
+import com.adobe.target.edge.client.ondevice.RuleIndex;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class OnDeviceDecisioningRules {
+  private static final Set<String> DYNAMIC_CONTEXT_KEYS =
+      Collections.unmodifiableSet(new HashSet<>());
+
   private Map<String, List<OnDeviceDecisioningRule>> mboxes;
   private Map<String, List<OnDeviceDecisioningRule>> views;
 
+  private volatile List<OnDeviceDecisioningRule> allViews;
+  private volatile Map<String, RuleIndex> mboxIndexes;
+  private volatile Map<String, RuleIndex> viewIndexes;
+  private volatile RuleIndex allViewsIndex;
+  private volatile Set<String> contextKeys;
+
   public Map<String, List<OnDeviceDecisioningRule>> getMboxes() {
     return mboxes;
   }
@@ -26,6 +44,309 @@ public class OnDeviceDecisioningRules {
     return views;
   }
 
+  /**
+   * Rules of every view, in artifact order, used for view requests without a name. Computed once
+   * per rule set.
+   *
+   * @return unmodifiable list of view rules
+   */
+  @JsonIgnore
+  public List<OnDeviceDecisioningRule> getAllViews() {
+    List<OnDeviceDecisioningRule> result = allViews;
+    if (result == null) {
+      List<OnDeviceDecisioningRule> flattened = new ArrayList<>();
+      if (views != null) {
+        for (List<OnDeviceDecisioningRule> rules : views.values()) {
+          if (rules != null) {
+            flattened.addAll(rules);
+          }
+        }
+      }
+      result = Collections.unmodifiableList(flattened);
+      allViews = result;
+    }
+    return result;
+  }
+
+  /**
+   * @param name mbox name
+   * @return prefilter index over the rules of the mbox, or null if the mbox has no rules
+   */
+  public RuleIndex getMboxRuleIndex(String name) {
+    return mboxIndexes().get(name);
+  }
+
+  /**
+   * @param name view name
+   * @return prefilter index over the rules of the view, or null if the view has no rules
+   */
+  public RuleIndex getViewRuleIndex(String name) {
+    return viewIndexes().get(name);
+  }
+
+  /** @return prefilter index over {@link #getAllViews()} */
+  @JsonIgnore
+  public RuleIndex getAllViewsRuleIndex() {
+    RuleIndex index = allViewsIndex;
+    if (index == null) {
+      index = RuleIndex.build(getAllViews());
+      allViewsIndex = index;
+    }
+    return index;
+  }
+
+  /**
+   * Top-level request context keys read by the conditions of the rules, so that context values no
+   * rule reads are never computed.
+   *
+   * @return unmodifiable set of keys, or null when some rule computes variable names at evaluation
+   *     time and any key may be read
+   */
+  @JsonIgnore
+  public Set<String> getContextKeys() {
+    Set<String> keys = contextKeys;
+    if (keys == null) {
+      Set<String> collected = new HashSet<>();
+      if (addContextKeys(mboxes, collected) && addContextKeys(views, collected)) {
+        keys = Collections.unmodifiableSet(collected);
+      } else {
+        keys = DYNAMIC_CONTEXT_KEYS;
+      }
+      contextKeys = keys;
+    }
+    return keys == DYNAMIC_CONTEXT_KEYS ? null : keys;
+  }
+
+  /** Prepares every rule in this set for evaluation and computes the derived indexes. */
+  public void compile() {
+    compile(mboxes);
+    compile(views);
+    getAllViews();
+    mboxIndexes();
+    viewIndexes();
+    getAllViewsRuleIndex();
+    getContextKeys();
+  }
+
+  /**
+   * Prepares this set for evaluation like {@link #compile()}, reusing the work already done for the
+   * previous rule set of the same artifact. Rules whose content did not change are replaced by
+   * their compiled instances from the previous set, and mboxes and views whose rules all stayed the
+   * same keep their previous index, so the cost of an update is proportional to what changed.
+   *
+   * @param previous rules currently in use, may be null
+   * @return number of rules reused from the previous set
+   */
+  public int compile(OnDeviceDecisioningRules previous) {
+    if (previous == null) {
+      compile();
+      return 0;
+    }
+    Map<String, OnDeviceDecisioningRule> previousRules = new HashMap<>();
+    addByContent(previous.mboxes, previousRules);
+    addByContent(previous.views, previousRules);
+    this.mboxes = reuseRules(mboxes, previous.mboxes, previousRules);
+    this.views = reuseRules(views, previous.views, previousRules);
+    this.mboxIndexes = reuseIndexes(mboxes, previous.mboxes, previous.mboxIndexes());
+    this.viewIndexes = reuseIndexes(views, previous.views, previous.viewIndexes());
+    List<OnDeviceDecisioningRule> previousAllViews = previous.getAllViews();
+    if (sameRules(getAllViews(), previousAllViews)) {
+      this.allViews = previousAllViews;
+      this.allViewsIndex = previous.getAllViewsRuleIndex();
+    }
+    compile();
+    return countReused(mboxes, previousRules) + countReused(views, previousRules);
+  }
+
+  @JsonProperty("mboxes")
+  private void setMboxes(Map<String, List<OnDeviceDecisioningRule>> mboxes) {
+    this.mboxes = immutableRules(mboxes);
+  }
+
+  @JsonProperty("views")
+  private void setViews(Map<String, List<OnDeviceDecisioningRule>> views) {
+    this.views = immutableRules(views);
+  }
+
+  private static Map<String, List<OnDeviceDecisioningRule>> immutableRules(
+      Map<String, List<OnDeviceDecisioningRule>> rulesByName) {
+    if (rulesByName == null) {
+      return null;
+    }
+    Map<String, List<OnDeviceDecisioningRule>> copy = new LinkedHashMap<>();
+    for (Map.Entry<String, List<OnDeviceDecisioningRule>> entry : rulesByName.entrySet()) {
+      List<OnDeviceDecisioningRule> rules = entry.getValue();
+      copy.put(
+          entry.getKey(),
+          rules == null ? null : Collections.unmodifiableList(new ArrayList<>(rules)));
+    }
+    return Collections.unmodifiableMap(copy);
+  }
+
+  private static String contentKey(OnDeviceDecisioningRule rule) {
+    return rule.getRuleKey() + "#" + rule.contentHash();
+  }
+
+  private static void addByContent(
+      Map<String, List<OnDeviceDecisioningRule>> rulesByName,
+      Map<String, OnDeviceDecisioningRule> rulesByContent) {
+    if (rulesByName == null) {
+      return;
+    }
+    for (List<OnDeviceDecisioningRule> rules : rulesByName.values()) {
+      if (rules == null) {
+        continue;
+      }
+      for (OnDeviceDecisioningRule rule : rules) {
+        rulesByContent.put(contentKey(rule), rule);
+      }
+    }
+  }
+
+  private static Map<String, List<OnDeviceDecisioningRule>> reuseRules(
+      Map<String, List<OnDeviceDecisioningRule>> rulesByName,
+      Map<String, List<OnDeviceDecisioningRule>> previousByName,
+      Map<String, OnDeviceDecisioningRule> previousRules) {
+    if (rulesByName == null) {
+      return null;
+    }
+    Map<String, List<OnDeviceDecisioningRule>> reused = new LinkedHashMap<>();
+    for (Map.Entry<String, List<OnDeviceDecisioningRule>> entry : rulesByName.entrySet()) {
+      List<OnDeviceDecisioningRule> rules = entry.getValue();
+      if (rules == null) {
+        reused.put(entry.getKey(), null);
+        continue;
+      }
+      List<OnDeviceDecisioningRule> copy = new ArrayList<>(rules.size());
+      for (OnDeviceDecisioningRule rule : rules) {
+        OnDeviceDecisioningRule previous = previousRules.get(contentKey(rule));
+        copy.add(previous != null && previous.hasSameContent(rule) ? previous : rule);
+      }
+      List<OnDeviceDecisioningRule> previous =
+          previousByName == null ? null : previousByName.get(entry.getKey());
+      reused.put(
+          entry.getKey(),
+          sameRules(copy, previous) ? previous : Collections.unmodifiableList(copy));
+    }
+    return Collections.unmodifiableMap(reused);
+  }
+
+  private static Map<String, RuleIndex> reuseIndexes(
+      Map<String, List<OnDeviceDecisioningRule>> rulesByName,
+      Map<String, List<OnDeviceDecisioningRule>> previousByName,
+      Map<String, RuleIndex> previousIndexes) {
+    if (rulesByName == null) {
+      return Collections.emptyMap();
+    }
+    Map<String, RuleIndex> indexes = new HashMap<>();
+    for (Map.Entry<String, List<OnDeviceDecisioningRule>> entry : rulesByName.entrySet()) {
+      List<OnDeviceDecisioningRule> rules = entry.getValue();
+      boolean unchanged =
+          rules != null && previousByName != null && rules == previousByName.get(entry.getKey());
+      indexes.put(
+          entry.getKey(), unchanged ? previousIndexes.get(entry.getKey()) : RuleIndex.build(rules));
+    }
+    return Collections.unmodifiableMap(indexes);
+  }
+
+  private static boolean sameRules(
+      List<OnDeviceDecisioningRule> rules, List<OnDeviceDecisioningRule> previous) {
+    if (previous == null || rules.size() != previous.size()) {
+      return false;
+    }
+    for (int i = 0; i < rules.size(); i++) {
+      if (rules.get(i) != previous.get(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int countReused(
+      Map<String, List<OnDeviceDecisioningRule>> rulesByName,
+      Map<String, OnDeviceDecisioningRule> previousRules) {
+    if (rulesByName == null) {
+      return 0;
+    }
+    int count = 0;
+    for (List<OnDeviceDecisioningRule> rules : rulesByName.values()) {
+      if (rules == null) {
+        continue;
+      }
+      for (OnDeviceDecisioningRule rule : rules) {
+        if (previousRules.get(contentKey(rule)) == rule) {
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+
+  private static boolean addContextKeys(
+      Map<String, List<OnDeviceDecisioningRule>> rulesByName, Set<String> keys) {
+    if (rulesByName == null) {
+      return true;
+    }
+    for (List<OnDeviceDecisioningRule> rules : rulesByName.values()) {
+      if (rules == null) {
+        continue;
+      }
+      for (OnDeviceDecisioningRule rule : rules) {
+        Set<String> ruleKeys = rule.getCompiledCondition().getContextKeys();
+        if (ruleKeys == null) {
+          return false;
+        }
+        keys.addAll(ruleKeys);
+      }
+    }
+    return true;
+  }
+
+  private Map<String, RuleIndex> mboxIndexes() {
+    Map<String, RuleIndex> indexes = mboxIndexes;
+    if (indexes == null) {
+      indexes = buildIndexes(mboxes);
+      mboxIndexes = indexes;
+    }
+    return indexes;
+  }
+
+  private Map<String, RuleIndex> viewIndexes() {
+    Map<String, RuleIndex> indexes = viewIndexes;
+    if (indexes == null) {
+      indexes = buildIndexes(views);
+      viewIndexes = indexes;
+    }
+    return indexes;
+  }
+
+  private static Map<String, RuleIndex> buildIndexes(
+      Map<String, List<OnDeviceDecisioningRule>> rulesByName) {
+    if (rulesByName == null) {
+      return Collections.emptyMap();
+    }
+    Map<String, RuleIndex> indexes = new HashMap<>();
+    for (Map.Entry<String, List<OnDeviceDecisioningRule>> entry : rulesByName.entrySet()) {
+      indexes.put(entry.getKey(), RuleIndex.build(entry.getValue()));
+    }
+    return Collections.unmodifiableMap(indexes);
+  }
+
+  private static void compile(Map<String, List<OnDeviceDecisioningRule>> rulesByName) {
+    if (rulesByName == null) {
+      return;
+    }
+    for (List<OnDeviceDecisioningRule> rules : rulesByName.values()) {
+      if (rules == null) {
+        continue;
+      }
+      for (OnDeviceDecisioningRule rule : rules) {
+        rule.getCompiledCondition();
+        rule.getRuleConsequence();
+      }
+    }
+  }
+
   @Override
   public String toString() {
     return "LocalDecisioningRules{" + "mboxes=" + mboxes + ", views=" + views + '}';
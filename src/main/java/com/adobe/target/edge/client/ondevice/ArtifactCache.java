@@ -0,0 +1,112 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import kong.unirest.UnirestException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the last validated artifact of an artifact location on disk, in the {@link
+ * CompiledArtifact} format together with its ETag. The file is written to a temporary file first
+ * and then moved into place, so readers never see a partial artifact, and it is read through a
+ * memory mapping, so processes sharing the directory share its pages.
+ */
+final class ArtifactCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(ArtifactCache.class);
+
+  private static final String FILE_PREFIX = "rules-";
+  private static final String FILE_SUFFIX = ".artifact";
+
+  private final Path directory;
+  private final Path file;
+
+  ArtifactCache(Path directory, String location) {
+    this.directory = directory;
+    this.file = directory.resolve(FILE_PREFIX + sha256Hex(location) + FILE_SUFFIX);
+  }
+
+  Path getFile() {
+    return file;
+  }
+
+  /** @return the cached artifact, or null when there is none or it cannot be read */
+  CompiledArtifact read() {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return CompiledArtifact.read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException | UnirestException e) {
+      logger.warn("Unable to read cached local-decisioning rule set from " + file, e);
+      return null;
+    }
+  }
+
+  /**
+   * Replaces the cached artifact, logging rather than failing when the directory is unusable.
+   *
+   * @param etag ETag the artifact was served with, may be null
+   * @param artifact JSON rule set artifact
+   */
+  void write(String etag, byte[] artifact) {
+    Path temporary = null;
+    try {
+      byte[] compiled = CompiledArtifact.compile(artifact, etag);
+      Files.createDirectories(directory);
+      temporary = Files.createTempFile(directory, FILE_PREFIX, ".tmp");
+      Files.write(temporary, compiled);
+      try {
+        Files.move(
+            temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+      temporary = null;
+    } catch (IOException | UnirestException e) {
+      logger.warn("Unable to cache local-decisioning rule set in " + directory, e);
+    } finally {
+      if (temporary != null) {
+        try {
+          Files.deleteIfExists(temporary);
+        } catch (IOException e) {
+          logger.debug("Unable to delete " + temporary, e);
+        }
+      }
+    }
+  }
+
+  private static String sha256Hex(String value) {
+    try {
+      byte[] digest =
+          MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+      StringBuilder hex = new StringBuilder(digest.length * 2);
+      for (byte b : digest) {
+        hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
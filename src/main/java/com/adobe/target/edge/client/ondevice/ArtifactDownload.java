@@ -0,0 +1,82 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice;
+
+import com.google.common.io.CountingInputStream;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Body of an artifact response, decompressed according to its {@code Content-Encoding} while it is
+ * read, counting both the bytes received and the bytes they decompress to. The compression is also
+ * recognized by its header, so a body labelled as compressed that is not is passed through.
+ */
+final class ArtifactDownload {
+
+  static final String ACCEPT_ENCODING = "gzip, deflate";
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private final String contentEncoding;
+  private CountingInputStream received;
+  private CountingInputStream decompressed;
+
+  /** @param contentEncoding value of the Content-Encoding header, or null */
+  ArtifactDownload(String contentEncoding) {
+    this.contentEncoding =
+        contentEncoding == null ? null : contentEncoding.trim().toLowerCase(Locale.ROOT);
+  }
+
+  /** @return stream of the decompressed body, which closes the given one */
+  InputStream open(InputStream body) throws IOException {
+    this.received = new CountingInputStream(body);
+    this.decompressed = new CountingInputStream(decompress(this.received));
+    return this.decompressed;
+  }
+
+  private InputStream decompress(InputStream body) throws IOException {
+    boolean gzip = "gzip".equals(contentEncoding) || "x-gzip".equals(contentEncoding);
+    if (!gzip && !"deflate".equals(contentEncoding)) {
+      return body;
+    }
+    BufferedInputStream buffered = new BufferedInputStream(body, BUFFER_SIZE);
+    buffered.mark(2);
+    int first = buffered.read();
+    int second = buffered.read();
+    buffered.reset();
+    if (gzip && first == 0x1f && second == 0x8b) {
+      return new GZIPInputStream(buffered, BUFFER_SIZE);
+    }
+    // zlib header: deflate method, and a check value making the first two bytes a multiple of 31
+    if (!gzip && (first & 0x0f) == 8 && second >= 0 && ((first << 8) | second) % 31 == 0) {
+      return new InflaterInputStream(buffered);
+    }
+    return buffered;
+  }
+
+  /** @return Content-Encoding of the response, or null */
+  String getContentEncoding() {
+    return contentEncoding;
+  }
+
+  long getReceivedBytes() {
+    return received == null ? 0 : received.getCount();
+  }
+
+  long getDecompressedBytes() {
+    return decompressed == null ? 0 : decompressed.getCount();
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice;
+
+import java.util.Date;
+
+/** Cost of one artifact request made by a {@link RuleLoader}. Times are in milliseconds. */
+public final class ArtifactFetch {
+
+  private final long time;
+  private final int status;
+  private final boolean succeeded;
+  private final String contentEncoding;
+  private final long receivedBytes;
+  private final long decompressedBytes;
+  private final double downloadTime;
+  private final double parseTime;
+  private final double compileTime;
+
+  ArtifactFetch(
+      long time,
+      int status,
+      boolean succeeded,
+      String contentEncoding,
+      long receivedBytes,
+      long decompressedBytes,
+      double downloadTime,
+      double parseTime,
+      double compileTime) {
+    this.time = time;
+    this.status = status;
+    this.succeeded = succeeded;
+    this.contentEncoding = contentEncoding;
+    this.receivedBytes = receivedBytes;
+    this.decompressedBytes = decompressedBytes;
+    this.downloadTime = downloadTime;
+    this.parseTime = parseTime;
+    this.compileTime = compileTime;
+  }
+
+  public Date getTime() {
+    return new Date(time);
+  }
+
+  /** @return HTTP status of the response, or 0 if the request failed without one */
+  public int getStatus() {
+    return status;
+  }
+
+  /** @return true if a new rule set was installed or the artifact was not modified */
+  public boolean isSucceeded() {
+    return succeeded;
+  }
+
+  public boolean isNotModified() {
+    return status == 304;
+  }
+
+  /** @return Content-Encoding the artifact was served with, or null */
+  public String getContentEncoding() {
+    return contentEncoding;
+  }
+
+  /** @return size of the response body as received, before decompression */
+  public long getReceivedBytes() {
+    return receivedBytes;
+  }
+
+  /** @return size of the artifact after decompression */
+  public long getDecompressedBytes() {
+    return decompressedBytes;
+  }
+
+  /** @return time from sending the request until the artifact was read and parsed */
+  public double getDownloadTime() {
+    return downloadTime;
+  }
+
+  /**
+   * @return time spent parsing the artifact. When the body is streamed into the parser, this
+   *     includes waiting for the body to arrive
+   */
+  public double getParseTime() {
+    return parseTime;
+  }
+
+  /** @return time spent compiling the rules of the artifact */
+  public double getCompileTime() {
+    return compileTime;
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice;
+
+/**
+ * Immutable totals of the artifact requests made by a {@link RuleLoader} since it was started,
+ * along with the details of the latest one.
+ */
+public final class ArtifactFetchMetrics {
+
+  static final ArtifactFetchMetrics EMPTY = new ArtifactFetchMetrics(0, 0, 0, 0, 0, null);
+
+  private final long fetches;
+  private final long notModified;
+  private final long failures;
+  private final long receivedBytes;
+  private final long decompressedBytes;
+  private final ArtifactFetch lastFetch;
+
+  private ArtifactFetchMetrics(
+      long fetches,
+      long notModified,
+      long failures,
+      long receivedBytes,
+      long decompressedBytes,
+      ArtifactFetch lastFetch) {
+    this.fetches = fetches;
+    this.notModified = notModified;
+    this.failures = failures;
+    this.receivedBytes = receivedBytes;
+    this.decompressedBytes = decompressedBytes;
+    this.lastFetch = lastFetch;
+  }
+
+  /** @return new metrics counting the given request too */
+  ArtifactFetchMetrics withFetch(ArtifactFetch fetch) {
+    return new ArtifactFetchMetrics(
+        fetches + 1,
+        notModified + (fetch.isNotModified() ? 1 : 0),
+        failures + (fetch.isSucceeded() ? 0 : 1),
+        receivedBytes + fetch.getReceivedBytes(),
+        decompressedBytes + fetch.getDecompressedBytes(),
+        fetch);
+  }
+
+  /** @return number of artifact requests made */
+  public long getFetches() {
+    return fetches;
+  }
+
+  /** @return number of requests answered with 304 Not Modified */
+  public long getNotModified() {
+    return notModified;
+  }
+
+  /** @return share of requests answered with 304 Not Modified, 0 if none were made */
+  public double getNotModifiedRate() {
+    return fetches == 0 ? 0 : (double) notModified / fetches;
+  }
+
+  /** @return number of requests that did not install a rule set and were not answered with 304 */
+  public long getFailures() {
+    return failures;
+  }
+
+  /** @return total size of the response bodies as received, before decompression */
+  public long getReceivedBytes() {
+    return receivedBytes;
+  }
+
+  /** @return total size of the artifacts after decompression */
+  public long getDecompressedBytes() {
+    return decompressedBytes;
+  }
+
+  /** @return latest request, or null if none was made */
+  public ArtifactFetch getLastFetch() {
+    return lastFetch;
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the background work of every client in the JVM, such as artifact polling and cluster
+ * location retries, on daemon threads shared by all of them. Short tasks run on a small fixed pool.
+ * Tasks that block on I/O, such as artifact downloads, run on a separate pool sized to the number
+ * of processors whose threads exit when idle, so a slow download delays neither the short tasks nor
+ * the downloads of other clients. Tasks that throw are logged and keep their schedule.
+ */
+final class BackgroundScheduler {
+
+  private static final Logger logger = LoggerFactory.getLogger(BackgroundScheduler.class);
+
+  private static final String THREAD_NAME_PREFIX = "adobe-target-background-";
+  private static final String BLOCKING_THREAD_NAME_PREFIX = "adobe-target-fetch-";
+  private static final int THREADS = 2;
+  private static final int BLOCKING_THREADS =
+      Math.max(THREADS, Runtime.getRuntime().availableProcessors());
+  private static final long BLOCKING_KEEP_ALIVE_SECONDS = 60;
+
+  private static final ScheduledThreadPoolExecutor EXECUTOR =
+      createExecutor(THREAD_NAME_PREFIX, THREADS);
+  private static final ScheduledThreadPoolExecutor BLOCKING_EXECUTOR = createBlockingExecutor();
+
+  private BackgroundScheduler() {}
+
+  static ScheduledFuture<?> schedule(Runnable task, long delayMillis) {
+    return EXECUTOR.schedule(guarded(task), delayMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /** Runs the task after the delay, and then again every period after each run completes. */
+  static ScheduledFuture<?> scheduleWithFixedDelay(
+      Runnable task, long delayMillis, long periodMillis) {
+    return EXECUTOR.scheduleWithFixedDelay(
+        guarded(task), delayMillis, periodMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /** Like {@link #scheduleWithFixedDelay}, for tasks that block on I/O. */
+  static ScheduledFuture<?> scheduleBlockingWithFixedDelay(
+      Runnable task, long delayMillis, long periodMillis) {
+    return BLOCKING_EXECUTOR.scheduleWithFixedDelay(
+        guarded(task), delayMillis, periodMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /** Cancels the task without interrupting it if it is running. Accepts null. */
+  static void cancel(Future<?> task) {
+    if (task != null) {
+      task.cancel(false);
+    }
+  }
+
+  private static Runnable guarded(Runnable task) {
+    return () -> {
+      try {
+        task.run();
+      } catch (Throwable t) {
+        // a task that throws would never run again
+        logger.error("Background task failed", t);
+      }
+    };
+  }
+
+  private static ScheduledThreadPoolExecutor createBlockingExecutor() {
+    ScheduledThreadPoolExecutor executor =
+        createExecutor(BLOCKING_THREAD_NAME_PREFIX, BLOCKING_THREADS);
+    executor.setKeepAliveTime(BLOCKING_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  private static ScheduledThreadPoolExecutor createExecutor(String threadNamePrefix, int threads) {
+    AtomicInteger threadCount = new AtomicInteger();
+    ThreadFactory threadFactory =
+        runnable -> {
+          Thread thread = new Thread(runnable, threadNamePrefix + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        };
+    ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(threads, threadFactory);
+    executor.setRemoveOnCancelPolicy(true);
+    return executor;
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with jitter. The delay before each retry doubles up to a cap, and a random
+ * half of it is dropped, so that clients which failed together do not retry together.
+ */
+final class Backoff {
+
+  private final long initialDelayMillis;
+  private final long maxDelayMillis;
+
+  Backoff(long initialDelayMillis, long maxDelayMillis) {
+    this.initialDelayMillis = initialDelayMillis;
+    this.maxDelayMillis = Math.max(initialDelayMillis, maxDelayMillis);
+  }
+
+  /**
+   * @param attempt number of the retry, starting at 1
+   * @return delay in milliseconds, between half and all of the capped exponential delay
+   */
+  long delayMillis(int attempt) {
+    long ceiling = ceilingMillis(attempt);
+    long half = ceiling / 2;
+    return half + ThreadLocalRandom.current().nextLong(ceiling - half + 1);
+  }
+
+  long ceilingMillis(int attempt) {
+    int doublings = Math.max(0, Math.min(attempt - 1, 62));
+    if (initialDelayMillis > maxDelayMillis >> doublings) {
+      return maxDelayMillis;
+    }
+    return initialDelayMillis << doublings;
+  }
+}
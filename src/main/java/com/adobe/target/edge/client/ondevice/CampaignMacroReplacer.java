@@ -12,24 +12,25 @@
 package com.adobe.target.edge.client.ondevice;
 
 import com.adobe.target.delivery.v1.model.MboxRequest;
-import com.adobe.target.delivery.v1.model.Option;
 import com.adobe.target.delivery.v1.model.OptionType;
 import com.adobe.target.delivery.v1.model.RequestDetails;
-import com.adobe.target.edge.client.model.ondevice.OnDeviceDecisioningRule;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
+/**
+ * Replaces campaign macros such as {@code ${activity.name}} in option content. Content is split
+ * into literal and macro segments once per artifact by {@link #compile}; macros found in the rule
+ * meta are resolved at that point, the others are resolved against each request.
+ */
 public class CampaignMacroReplacer {
-  private static final String OPTIONS = "options";
   private static final String CONTENT = "content";
 
-  private static final String MACRO_PATTERN_REGEX = "\\$\\{([a-zA-Z0-9_.]*?)\\}";
+  private static final Pattern MACRO_PATTERN =
+      Pattern.compile("\\$\\{([a-zA-Z0-9_.]*?)\\}", Pattern.MULTILINE | Pattern.CASE_INSENSITIVE);
 
-  private final Map<String, String> MACRO_NAME_REPLACEMENTS =
+  private static final Map<String, String> MACRO_NAME_REPLACEMENTS =
       new HashMap<String, String>() {
         {
           put("campaign", "activity");
@@ -37,25 +38,15 @@ public class CampaignMacroReplacer {
         }
       };
 
-  private final List<String> LOCATION_NAME_REPLACEMENTS = Arrays.asList("mbox.name", "view.name");
+  private static final List<String> LOCATION_NAME_REPLACEMENTS =
+      Arrays.asList("mbox.name", "view.name");
 
-  private final List<String> MACRO_NAME_REMOVALS = Arrays.asList("mbox");
+  private static final List<String> MACRO_NAME_REMOVALS = Arrays.asList("mbox");
 
-  private final Map<String, Object> consequence;
-  private final OnDeviceDecisioningRule rule;
   private final HashMap<String, Object> requestDetails;
-  private final ObjectMapper mapper;
   private final Map<String, String> requestParameters;
 
-  public CampaignMacroReplacer(
-      OnDeviceDecisioningRule rule,
-      Map<String, Object> consequence,
-      RequestDetails details,
-      ObjectMapper mapper) {
-
-    this.rule = rule;
-    this.consequence = consequence;
-
+  public CampaignMacroReplacer(RequestDetails details) {
     this.requestDetails = new HashMap<>();
 
     this.requestParameters = details.getParameters();
@@ -64,53 +55,87 @@ public class CampaignMacroReplacer {
       this.requestDetails.put("name", ((MboxRequest) details).getName());
       this.requestDetails.put("index", ((MboxRequest) details).getIndex());
     }
-    this.mapper = mapper;
   }
 
-  public List<Option> getOptions() {
-    Object options = this.consequence.get(OPTIONS);
-
-    List<Option> optionsList =
-        this.mapper.convertValue(options, new TypeReference<List<Option>>() {});
-
-    for (Option option : optionsList) {
-      if (option.getType() == OptionType.HTML && option.getContent() instanceof String) {
-        option.setContent(this.addCampaignMacroValues((String) option.getContent()));
-      }
-
-      if (option.getType() == OptionType.ACTIONS && option.getContent() instanceof List) {
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> actions = (List<Map<String, Object>>) option.getContent();
-        for (Map<String, Object> action : actions) {
-          if (action.get(CONTENT) instanceof String) {
-            action.put(CONTENT, this.addCampaignMacroValues((String) action.get(CONTENT)));
-          }
-        }
+  /**
+   * Splits the macros out of the content of an option.
+   *
+   * @param type option type, only html and actions content has macros
+   * @param content unmodifiable option content
+   * @param meta meta of the rule, used to resolve macros that do not depend on the request
+   * @return compiled content
+   */
+  static ContentTemplate compile(OptionType type, Object content, Map<String, Object> meta) {
+    if (type == OptionType.HTML && content instanceof String) {
+      MacroTemplate template = MacroTemplate.compile((String) content, meta);
+      return template.isStatic()
+          ? new ContentTemplate(template.literals[0], null)
+          : new ContentTemplate(content, template);
+    }
+    if (type == OptionType.ACTIONS && content instanceof List) {
+      List<Object> actions = new ArrayList<>();
+      boolean dynamic = false;
+      for (Object action : (List<?>) content) {
+        Object compiled = compileAction(action, meta);
+        dynamic |= compiled instanceof ActionTemplate;
+        actions.add(compiled);
       }
+      return dynamic
+          ? new ContentTemplate(content, actions)
+          : new ContentTemplate(Collections.unmodifiableList(actions), null);
     }
-
-    return optionsList;
+    return new ContentTemplate(content, null);
   }
 
-  private String addCampaignMacroValues(String htmlContent) {
-    Pattern pattern =
-        Pattern.compile(MACRO_PATTERN_REGEX, Pattern.MULTILINE + Pattern.CASE_INSENSITIVE);
-    Matcher matcher = pattern.matcher(htmlContent);
-    StringBuffer buffer = new StringBuffer(htmlContent.length());
-
-    while (matcher.find()) {
-      String macroKey = sanitizedMacroKey(matcher.group(1));
-      String macroValue = this.getMacroValue(macroKey, "${" + matcher.group(1) + "}");
-
-      matcher.appendReplacement(buffer, Matcher.quoteReplacement(macroValue));
+  private static Object compileAction(Object action, Map<String, Object> meta) {
+    if (!(action instanceof Map) || !(((Map<?, ?>) action).get(CONTENT) instanceof String)) {
+      return action;
+    }
+    @SuppressWarnings("unchecked")
+    Map<String, Object> actionMap = (Map<String, Object>) action;
+    MacroTemplate template = MacroTemplate.compile((String) actionMap.get(CONTENT), meta);
+    if (!template.isStatic()) {
+      return new ActionTemplate(actionMap, template);
     }
+    Map<String, Object> resolved = new LinkedHashMap<>(actionMap);
+    resolved.put(CONTENT, template.literals[0]);
+    return Collections.unmodifiableMap(resolved);
+  }
 
-    matcher.appendTail(buffer);
+  /**
+   * @param template compiled content with request macros
+   * @return new content with the macros of this request replaced
+   */
+  Object replaceMacros(ContentTemplate template) {
+    if (template.dynamic instanceof MacroTemplate) {
+      return replaceMacros((MacroTemplate) template.dynamic);
+    }
+    List<?> actions = (List<?>) template.dynamic;
+    List<Object> replaced = new ArrayList<>(actions.size());
+    for (Object action : actions) {
+      if (action instanceof ActionTemplate) {
+        ActionTemplate actionTemplate = (ActionTemplate) action;
+        Map<String, Object> actionMap = new LinkedHashMap<>(actionTemplate.action);
+        actionMap.put(CONTENT, replaceMacros(actionTemplate.content));
+        replaced.add(actionMap);
+      } else {
+        replaced.add(action);
+      }
+    }
+    return replaced;
+  }
 
-    return buffer.toString();
+  private String replaceMacros(MacroTemplate template) {
+    StringBuilder builder = new StringBuilder(template.length);
+    builder.append(template.literals[0]);
+    for (int i = 0; i < template.keys.length; i++) {
+      builder.append(getMacroValue(template.keys[i], template.placeholders[i]));
+      builder.append(template.literals[i + 1]);
+    }
+    return builder.toString();
   }
 
-  private String sanitizedMacroKey(String macroKey) {
+  private static String sanitizedMacroKey(String macroKey) {
     if (LOCATION_NAME_REPLACEMENTS.contains(macroKey)) {
       macroKey = "location.name";
     }
@@ -128,22 +153,98 @@ public class CampaignMacroReplacer {
   }
 
   private String getMacroValue(String key, String defaultValue) {
-    // first look for the key in rule meta
-    Map<String, Object> meta = this.rule.getMeta();
-    if (meta.containsKey(key)) {
-      return String.valueOf(meta.get(key));
-    }
-
-    // then look in the request detail
+    // rule meta was looked up when the template was compiled, so first look in the request detail
     if (this.requestDetails.containsKey(key)) {
       return String.valueOf(this.requestDetails.get(key));
     }
 
-    // finally look for the key in request parameters
-    if (this.requestParameters.containsKey(key)) {
+    // then look for the key in request parameters
+    if (this.requestParameters != null && this.requestParameters.containsKey(key)) {
       return requestParameters.get(key);
     }
 
     return defaultValue;
   }
+
+  /** Option content split into literal and macro segments. */
+  static final class ContentTemplate {
+    private final Object content;
+    private final Object dynamic;
+
+    private ContentTemplate(Object content, Object dynamic) {
+      this.content = content;
+      this.dynamic = dynamic;
+    }
+
+    /** @return content with the macros resolved from rule meta, shared by every request */
+    Object getContent() {
+      return content;
+    }
+
+    /** @return true when the content has macros that depend on the request */
+    boolean isDynamic() {
+      return dynamic != null;
+    }
+  }
+
+  private static final class ActionTemplate {
+    private final Map<String, Object> action;
+    private final MacroTemplate content;
+
+    private ActionTemplate(Map<String, Object> action, MacroTemplate content) {
+      this.action = action;
+      this.content = content;
+    }
+  }
+
+  /** Literal segments with a request macro between each two of them. */
+  private static final class MacroTemplate {
+    private final String[] literals;
+    private final String[] keys;
+    private final String[] placeholders;
+    private final int length;
+
+    private MacroTemplate(List<String> literals, List<String> keys, List<String> placeholders) {
+      this.literals = literals.toArray(new String[0]);
+      this.keys = keys.toArray(new String[0]);
+      this.placeholders = placeholders.toArray(new String[0]);
+      int length = 0;
+      for (String literal : this.literals) {
+        length += literal.length();
+      }
+      for (String placeholder : this.placeholders) {
+        length += placeholder.length();
+      }
+      this.length = length;
+    }
+
+    static MacroTemplate compile(String content, Map<String, Object> meta) {
+      List<String> literals = new ArrayList<>();
+      List<String> keys = new ArrayList<>();
+      List<String> placeholders = new ArrayList<>();
+      StringBuilder literal = new StringBuilder();
+      Matcher matcher = MACRO_PATTERN.matcher(content);
+      int end = 0;
+      while (matcher.find()) {
+        literal.append(content, end, matcher.start());
+        end = matcher.end();
+        String key = sanitizedMacroKey(matcher.group(1));
+        if (meta != null && meta.containsKey(key)) {
+          literal.append(meta.get(key));
+          continue;
+        }
+        literals.add(literal.toString());
+        literal.setLength(0);
+        keys.add(key);
+        placeholders.add(matcher.group());
+      }
+      literal.append(content, end, content.length());
+      literals.add(literal.toString());
+      return new MacroTemplate(literals, keys, placeholders);
+    }
+
+    boolean isStatic() {
+      return keys.length == 0;
+    }
+  }
 }
@@ -20,19 +20,20 @@ import com.adobe.target.edge.client.model.TargetDeliveryRequest;
 import com.adobe.target.edge.client.model.TargetDeliveryResponse;
 import com.adobe.target.edge.client.service.TargetService;
 import com.adobe.target.edge.client.utils.CookieUtils;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
 
 public class ClusterLocator {
 
   private static final int MAX_RETRIES = 10;
 
-  private boolean running;
+  private static final Backoff RETRY_BACKOFF = new Backoff(10 * 1000, 5 * 60 * 1000);
+
+  private volatile boolean running;
   private int retries;
   private String locationHint;
   private CompletableFuture<TargetDeliveryResponse> future = null;
-  private Timer timer = null;
+  private volatile ScheduledFuture<?> retryTask = null;
 
   public void start(final ClientConfig clientConfig, final TargetService targetService) {
     if (!clientConfig.isOnDeviceDecisioningEnabled()) {
@@ -43,7 +44,6 @@ public class ClusterLocator {
     }
     this.running = true;
     this.retries = 0;
-    this.timer = new Timer(this.getClass().getCanonicalName());
     executeRequest(targetService);
   }
 
@@ -52,7 +52,7 @@ public class ClusterLocator {
       return;
     }
     this.running = false;
-    this.timer.cancel();
+    BackgroundScheduler.cancel(this.retryTask);
     if (this.future != null) {
       this.future.cancel(true);
     }
@@ -79,14 +79,12 @@ public class ClusterLocator {
             String tntId = response.getResponse().getId().getTntId();
             this.locationHint = CookieUtils.locationHintFromTntId(tntId);
           } else if (retries++ < MAX_RETRIES) {
-            this.timer.schedule(
-                new TimerTask() {
-                  @Override
-                  public void run() {
-                    executeRequest(targetService);
-                  }
-                },
-                retries * 10000);
+            this.retryTask =
+                BackgroundScheduler.schedule(
+                    () -> executeRequest(targetService), RETRY_BACKOFF.delayMillis(retries));
+            if (!this.running) {
+              BackgroundScheduler.cancel(this.retryTask);
+            }
           }
         });
   }
@@ -0,0 +1,311 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice;
+
+import com.adobe.target.edge.client.model.ondevice.OnDeviceDecisioningRuleSet;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import kong.unirest.UnirestException;
+
+/**
+ * Binary form of a rule set artifact. The artifact is stored as its JSON tokens, with numbers in
+ * binary and every distinct string and property name written once to a string table that the tokens
+ * refer to by position. Reading it skips JSON tokenizing and number parsing, and every repeated
+ * string of the rule set is the same instance.
+ *
+ * <p>The format is a header ({@link #MAGIC}, {@link #FORMAT_VERSION} and the ETag of the artifact),
+ * the string table and the tokens. It is read from a {@link ByteBuffer}, so a file mapped with
+ * {@link java.nio.channels.FileChannel#map} is shared through the page cache by every process
+ * reading it.
+ */
+final class CompiledArtifact {
+
+  static final int MAGIC = 0x54475253;
+  static final int FORMAT_VERSION = 1;
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  private static final byte START_OBJECT = 1;
+  private static final byte END_OBJECT = 2;
+  private static final byte START_ARRAY = 3;
+  private static final byte END_ARRAY = 4;
+  private static final byte FIELD_NAME = 5;
+  private static final byte STRING = 6;
+  private static final byte INT = 7;
+  private static final byte LONG = 8;
+  private static final byte BIG_INTEGER = 9;
+  private static final byte DOUBLE = 10;
+  private static final byte BIG_DECIMAL = 11;
+  private static final byte TRUE = 12;
+  private static final byte FALSE = 13;
+  private static final byte NULL = 14;
+
+  private final String etag;
+  private final OnDeviceDecisioningRuleSet ruleSet;
+
+  private CompiledArtifact(String etag, OnDeviceDecisioningRuleSet ruleSet) {
+    this.etag = etag;
+    this.ruleSet = ruleSet;
+  }
+
+  /** @return ETag the artifact was served with, or null if it had none */
+  String getETag() {
+    return etag;
+  }
+
+  OnDeviceDecisioningRuleSet getRuleSet() {
+    return ruleSet;
+  }
+
+  static boolean isCompiled(byte[] artifact) {
+    return artifact.length >= 4 && ByteBuffer.wrap(artifact).getInt(0) == MAGIC;
+  }
+
+  /**
+   * @param artifact JSON rule set artifact
+   * @param etag ETag the artifact was served with, may be null
+   * @return binary form of the artifact
+   */
+  static byte[] compile(byte[] artifact, String etag) {
+    Map<String, Integer> positions = new HashMap<>();
+    List<String> strings = new ArrayList<>();
+    ByteArrayOutputStream tokenBytes = new ByteArrayOutputStream(artifact.length / 2);
+    try (JsonParser parser = JSON_FACTORY.createParser(artifact)) {
+      DataOutputStream tokens = new DataOutputStream(tokenBytes);
+      JsonToken token;
+      while ((token = parser.nextToken()) != null) {
+        switch (token) {
+          case START_OBJECT:
+            tokens.writeByte(START_OBJECT);
+            break;
+          case END_OBJECT:
+            tokens.writeByte(END_OBJECT);
+            break;
+          case START_ARRAY:
+            tokens.writeByte(START_ARRAY);
+            break;
+          case END_ARRAY:
+            tokens.writeByte(END_ARRAY);
+            break;
+          case FIELD_NAME:
+            tokens.writeByte(FIELD_NAME);
+            writeVarInt(tokens, position(parser.getCurrentName(), positions, strings));
+            break;
+          case VALUE_STRING:
+            tokens.writeByte(STRING);
+            writeVarInt(tokens, position(parser.getText(), positions, strings));
+            break;
+          case VALUE_NUMBER_INT:
+            switch (parser.getNumberType()) {
+              case INT:
+                tokens.writeByte(INT);
+                tokens.writeInt(parser.getIntValue());
+                break;
+              case LONG:
+                tokens.writeByte(LONG);
+                tokens.writeLong(parser.getLongValue());
+                break;
+              default:
+                tokens.writeByte(BIG_INTEGER);
+                writeVarInt(tokens, position(parser.getText(), positions, strings));
+            }
+            break;
+          case VALUE_NUMBER_FLOAT:
+            if (parser.getNumberType() == JsonParser.NumberType.BIG_DECIMAL) {
+              tokens.writeByte(BIG_DECIMAL);
+              writeVarInt(tokens, position(parser.getText(), positions, strings));
+            } else {
+              tokens.writeByte(DOUBLE);
+              tokens.writeDouble(parser.getDoubleValue());
+            }
+            break;
+          case VALUE_TRUE:
+            tokens.writeByte(TRUE);
+            break;
+          case VALUE_FALSE:
+            tokens.writeByte(FALSE);
+            break;
+          case VALUE_NULL:
+            tokens.writeByte(NULL);
+            break;
+          default:
+            throw new IOException("Unexpected token in rule set artifact: " + token);
+        }
+      }
+
+      ByteArrayOutputStream compiled = new ByteArrayOutputStream(tokenBytes.size() + 1024);
+      DataOutputStream out = new DataOutputStream(compiled);
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT_VERSION);
+      writeString(out, etag);
+      out.writeInt(strings.size());
+      for (String string : strings) {
+        writeString(out, string);
+      }
+      out.writeInt(tokenBytes.size());
+      tokenBytes.writeTo(out);
+      return compiled.toByteArray();
+    } catch (IOException e) {
+      throw new UnirestException(e);
+    }
+  }
+
+  /**
+   * Reads a compiled artifact from the current position of the buffer. The buffer itself is left
+   * untouched and no reference to it is kept.
+   */
+  static CompiledArtifact read(ByteBuffer compiled) {
+    ByteBuffer in = compiled.duplicate();
+    try {
+      if (in.getInt() != MAGIC) {
+        throw new IOException("Not a compiled rule set artifact");
+      }
+      int version = in.getInt();
+      if (version != FORMAT_VERSION) {
+        throw new IOException("Unsupported compiled rule set artifact version: " + version);
+      }
+      String etag = readString(in);
+      String[] strings = new String[in.getInt()];
+      for (int i = 0; i < strings.length; i++) {
+        strings[i] = readString(in);
+      }
+      int end = in.getInt() + in.position();
+      TokenBuffer tokens = new TokenBuffer(null, false);
+      while (in.position() < end) {
+        byte tag = in.get();
+        switch (tag) {
+          case START_OBJECT:
+            tokens.writeStartObject();
+            break;
+          case END_OBJECT:
+            tokens.writeEndObject();
+            break;
+          case START_ARRAY:
+            tokens.writeStartArray();
+            break;
+          case END_ARRAY:
+            tokens.writeEndArray();
+            break;
+          case FIELD_NAME:
+            tokens.writeFieldName(strings[readVarInt(in)]);
+            break;
+          case STRING:
+            tokens.writeString(strings[readVarInt(in)]);
+            break;
+          case INT:
+            tokens.writeNumber(in.getInt());
+            break;
+          case LONG:
+            tokens.writeNumber(in.getLong());
+            break;
+          case BIG_INTEGER:
+            tokens.writeNumber(new BigInteger(strings[readVarInt(in)]));
+            break;
+          case DOUBLE:
+            tokens.writeNumber(in.getDouble());
+            break;
+          case BIG_DECIMAL:
+            tokens.writeNumber(new BigDecimal(strings[readVarInt(in)]));
+            break;
+          case TRUE:
+            tokens.writeBoolean(true);
+            break;
+          case FALSE:
+            tokens.writeBoolean(false);
+            break;
+          case NULL:
+            tokens.writeNull();
+            break;
+          default:
+            throw new IOException("Corrupt compiled rule set artifact, unknown tag " + tag);
+        }
+      }
+      return new CompiledArtifact(etag, RuleSetParser.parse(tokens));
+    } catch (IOException
+        | BufferUnderflowException
+        | IndexOutOfBoundsException
+        | IllegalArgumentException e) {
+      throw new UnirestException(e);
+    }
+  }
+
+  private static int position(String value, Map<String, Integer> positions, List<String> strings) {
+    Integer position = positions.get(value);
+    if (position == null) {
+      position = strings.size();
+      positions.put(value, position);
+      strings.add(value);
+    }
+    return position;
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(ByteBuffer in) {
+    int length = in.getInt();
+    if (length < 0) {
+      return null;
+    }
+    String value;
+    if (in.hasArray()) {
+      value =
+          new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+    } else {
+      byte[] bytes = new byte[length];
+      in.duplicate().get(bytes);
+      value = new String(bytes, StandardCharsets.UTF_8);
+    }
+    in.position(in.position() + length);
+    return value;
+  }
+
+  private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+    while ((value & ~0x7f) != 0) {
+      out.writeByte((value & 0x7f) | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte(value);
+  }
+
+  private static int readVarInt(ByteBuffer in) {
+    int value = 0;
+    for (int shift = 0; ; shift += 7) {
+      byte b = in.get();
+      value |= (b & 0x7f) << shift;
+      if (b >= 0) {
+        return value;
+      }
+    }
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rule condition compiled once per artifact into a tree of typed nodes, so that evaluating a rule
+ * works directly against the request context with no JSON round trip.
+ */
+public final class CompiledCondition {
+
+  private final Object condition;
+  private final ConditionNode root;
+  private final Map<String, String> equalityGuards;
+  private final Set<String> contextKeys;
+
+  private CompiledCondition(Object condition, ConditionNode root) {
+    this.condition = condition;
+    this.root = root;
+    this.equalityGuards = Collections.unmodifiableMap(ConditionCompiler.equalityGuards(root));
+    Set<String> keys = ConditionCompiler.contextKeys(condition);
+    this.contextKeys = keys == null ? null : Collections.unmodifiableSet(keys);
+  }
+
+  /**
+   * Compiles a JsonLogic condition. Malformed conditions do not fail here, they fail every time
+   * they are evaluated instead.
+   *
+   * @param condition JsonLogic condition, as deserialized from the artifact
+   * @return CompiledCondition
+   */
+  public static CompiledCondition compile(Object condition) {
+    return new CompiledCondition(condition, ConditionCompiler.compile(condition));
+  }
+
+  /**
+   * Evaluates the condition against the given context.
+   *
+   * @param context request context
+   * @return whether the result of the condition is truthy
+   * @throws IllegalArgumentException if the condition is malformed
+   */
+  public boolean evaluate(Map<String, Object> context) {
+    return root.evaluateTruthy(context);
+  }
+
+  /** @return variable paths that must equal the mapped string for the condition to be true */
+  Map<String, String> getEqualityGuards() {
+    return equalityGuards;
+  }
+
+  /**
+   * @return top-level context keys read by the condition, or null when the condition reads
+   *     variables whose names are computed at evaluation time
+   */
+  public Set<String> getContextKeys() {
+    return contextKeys;
+  }
+
+  public Object getCondition() {
+    return condition;
+  }
+
+  @Override
+  public String toString() {
+    return String.valueOf(condition);
+  }
+}
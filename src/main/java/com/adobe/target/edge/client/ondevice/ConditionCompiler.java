@@ -0,0 +1,907 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compiles the JsonLogic conditions found in on-device decisioning artifacts into a tree of {@link
+ * ConditionNode}s. Variable paths are split once at compile time, literal operands are converted
+ * once, and the operators used by Target rules are evaluated by dedicated nodes.
+ */
+final class ConditionCompiler {
+
+  private static final String VAR = "var";
+
+  private ConditionCompiler() {}
+
+  static ConditionNode compile(Object condition) {
+    if (condition instanceof Map) {
+      Map<?, ?> operation = (Map<?, ?>) condition;
+      if (operation.size() != 1) {
+        return new Invalid(
+            "objects must have exactly 1 key defined, found "
+                + operation.size()
+                + ": "
+                + condition);
+      }
+      Map.Entry<?, ?> entry = operation.entrySet().iterator().next();
+      return compileOperation(String.valueOf(entry.getKey()), entry.getValue());
+    }
+    if (condition instanceof List) {
+      List<?> elements = (List<?>) condition;
+      ConditionNode[] nodes = new ConditionNode[elements.size()];
+      for (int i = 0; i < nodes.length; i++) {
+        nodes[i] = compile(elements.get(i));
+      }
+      return ArrayNode.of(nodes);
+    }
+    if (condition == null
+        || condition instanceof String
+        || condition instanceof Boolean
+        || condition instanceof Number) {
+      return new Literal(ConditionNode.normalize(condition));
+    }
+    return new Invalid("unsupported value in condition: " + condition);
+  }
+
+  /**
+   * Finds the conjuncts of a compiled condition that require a variable to equal a string literal.
+   * The condition cannot be true unless every returned guard holds. Variables the rule executor
+   * adds for each rule, such as {@code allocation}, are left out because guards are checked against
+   * the request context before they exist.
+   *
+   * @param root compiled condition
+   * @return variable path to required value, empty when the condition has no such guards
+   */
+  static Map<String, String> equalityGuards(ConditionNode root) {
+    Map<String, String> guards = new LinkedHashMap<>();
+    if (root instanceof And) {
+      for (ConditionNode conjunct : ((And) root).args) {
+        addEqualityGuard(conjunct, guards);
+      }
+    } else {
+      addEqualityGuard(root, guards);
+    }
+    return guards;
+  }
+
+  private static void addEqualityGuard(ConditionNode node, Map<String, String> guards) {
+    if (!(node instanceof Equals) || ((Equals) node).negate) {
+      return;
+    }
+    Equals equals = (Equals) node;
+    ConditionNode variable = equals.left instanceof Variable ? equals.left : equals.right;
+    ConditionNode literal = equals.left instanceof Variable ? equals.right : equals.left;
+    if (!(variable instanceof Variable) || !(literal instanceof Literal)) {
+      return;
+    }
+    String path = ((Variable) variable).getPath();
+    Object value = ((Literal) literal).getValue();
+    if (path != null
+        && !path.isEmpty()
+        && !isRuleVariable(path)
+        && ((Variable) variable).defaultValue == null
+        && value instanceof String) {
+      guards.putIfAbsent(path, (String) value);
+    }
+  }
+
+  private static boolean isRuleVariable(String path) {
+    int separator = path.indexOf('.');
+    String key = separator < 0 ? path : path.substring(0, separator);
+    return OnDeviceDecisioningRuleExecutor.ALLOCATION.equals(key);
+  }
+
+  /**
+   * Finds the top-level context keys a condition reads, e.g. {@code user} for {@code
+   * user.browserType}. Defaults of variables are evaluated without a context and read nothing.
+   *
+   * @param condition JsonLogic condition, as deserialized from the artifact
+   * @return top-level context keys, or null when a variable name is only known at evaluation time
+   */
+  static Set<String> contextKeys(Object condition) {
+    Set<String> keys = new HashSet<>();
+    return addContextKeys(condition, keys) ? keys : null;
+  }
+
+  private static boolean addContextKeys(Object condition, Set<String> keys) {
+    if (condition instanceof List) {
+      for (Object element : (List<?>) condition) {
+        if (!addContextKeys(element, keys)) {
+          return false;
+        }
+      }
+      return true;
+    }
+    if (!(condition instanceof Map)) {
+      return true;
+    }
+    for (Map.Entry<?, ?> entry : ((Map<?, ?>) condition).entrySet()) {
+      Object rawArguments = entry.getValue();
+      if (!VAR.equals(entry.getKey())) {
+        if (!addContextKeys(rawArguments, keys)) {
+          return false;
+        }
+        continue;
+      }
+      Object name =
+          rawArguments instanceof List
+              ? ((List<?>) rawArguments).isEmpty() ? null : ((List<?>) rawArguments).get(0)
+              : rawArguments;
+      if (!(name instanceof String) || ((String) name).isEmpty()) {
+        return false;
+      }
+      String path = (String) name;
+      int separator = path.indexOf('.');
+      keys.add(separator < 0 ? path : path.substring(0, separator));
+    }
+    return true;
+  }
+
+  private static ConditionNode compileOperation(String operator, Object rawArguments) {
+    List<?> rawList =
+        rawArguments instanceof List
+            ? (List<?>) rawArguments
+            : Collections.singletonList(rawArguments);
+    ConditionNode[] args = new ConditionNode[rawList.size()];
+    for (int i = 0; i < args.length; i++) {
+      args[i] = compile(rawList.get(i));
+    }
+    switch (operator) {
+      case VAR:
+        return Variable.of(args);
+      case "and":
+        return args.length == 0
+            ? new Invalid("and operator expects at least 1 argument")
+            : new And(args);
+      case "or":
+        return args.length == 0
+            ? new Invalid("or operator expects at least 1 argument")
+            : new Or(args);
+      case "if":
+      case "?:":
+        return new If(args);
+      default:
+        break;
+    }
+    if (!Operations.isSupported(operator)) {
+      return new Invalid("Undefined operation '" + operator + "'");
+    }
+    if (args.length == 1 && !args[0].isScalar()) {
+      // a single argument may evaluate to an array holding the actual arguments
+      return new Operation(operator, args);
+    }
+    switch (operator) {
+      case "==":
+      case "!=":
+      case "===":
+      case "!==":
+        if (args.length == 2) {
+          return new Equals(args[0], args[1], operator.startsWith("!"), operator.length() == 3);
+        }
+        break;
+      case "<":
+      case "<=":
+      case ">":
+      case ">=":
+        if (args.length == 2 || (args.length == 3 && operator.startsWith("<"))) {
+          return new Compare(operator, args);
+        }
+        break;
+      case "in":
+        if (args.length >= 2) {
+          return In.of(args[0], args[1]);
+        }
+        break;
+      case "!":
+      case "!!":
+        return new Not(args.length == 0 ? null : args[0], operator.length() == 2);
+      default:
+        break;
+    }
+    return new Operation(operator, args);
+  }
+
+  static final class Literal extends ConditionNode {
+    private final Object value;
+    private final double number;
+    private final boolean truthy;
+
+    Literal(Object value) {
+      this.value = value;
+      this.number = toNumber(value);
+      this.truthy = truthy(value);
+    }
+
+    @Override
+    boolean isScalar() {
+      return true;
+    }
+
+    @Override
+    Object evaluate(Map<String, Object> context) {
+      return value;
+    }
+
+    @Override
+    double evaluateNumber(Map<String, Object> context) {
+      return number;
+    }
+
+    @Override
+    boolean evaluateTruthy(Map<String, Object> context) {
+      return truthy;
+    }
+
+    Object getValue() {
+      return value;
+    }
+  }
+
+  static class ArrayNode extends ConditionNode {
+    private final ConditionNode[] elements;
+
+    ArrayNode(ConditionNode[] elements) {
+      this.elements = elements;
+    }
+
+    static ConditionNode of(ConditionNode[] elements) {
+      List<Object> values = new ArrayList<>(elements.length);
+      for (ConditionNode element : elements) {
+        if (!(element instanceof Literal)) {
+          return new ArrayNode(elements);
+        }
+        values.add(((Literal) element).getValue());
+      }
+      return new ConstantArray(Collections.unmodifiableList(values));
+    }
+
+    @Override
+    Object evaluate(Map<String, Object> context) {
+      List<Object> values = new ArrayList<>(elements.length);
+      for (ConditionNode element : elements) {
+        values.add(element.evaluate(context));
+      }
+      return values;
+    }
+
+    @Override
+    boolean evaluateTruthy(Map<String, Object> context) {
+      return elements.length > 0;
+    }
+  }
+
+  static final class ConstantArray extends ConditionNode {
+    private final List<Object> values;
+
+    ConstantArray(List<Object> values) {
+      this.values = values;
+    }
+
+    @Override
+    Object evaluate(Map<String, Object> context) {
+      return values;
+    }
+
+    List<Object> getValues() {
+      return values;
+    }
+  }
+
+  static final class Variable extends ConditionNode {
+    private final String path;
+    private final String[] segments;
+    private final ConditionNode key;
+    private final ConditionNode defaultValue;
+
+    private Variable(String path, ConditionNode key, ConditionNode defaultValue) {
+      this.path = path;
+      this.segments = path == null || path.isEmpty() ? null : path.split("\\.");
+      this.key = key;
+      this.defaultValue = defaultValue;
+    }
+
+    static ConditionNode of(ConditionNode[] args) {
+      ConditionNode key = args.length > 0 ? args[0] : null;
+      ConditionNode defaultValue = args.length > 1 ? args[1] : null;
+      if (key == null) {
+        return new Variable(null, null, defaultValue);
+      }
+      if (key instanceof Literal) {
+        Object value = ((Literal) key).getValue();
+        if (value == null) {
+          return new Variable(null, null, defaultValue);
+        }
+        if (value instanceof String) {
+          return new Variable((String) value, null, defaultValue);
+        }
+      }
+      return new Variable(null, key, defaultValue);
+    }
+
+    /** @return the dotted path of this variable, or null when it is not known at compile time */
+    String getPath() {
+      return path;
+    }
+
+    @Override
+    Object evaluate(Map<String, Object> context) {
+      Object value = resolve(context);
+      return value == null ? defaultValue(context) : normalize(value);
+    }
+
+    @Override
+    double evaluateNumber(Map<String, Object> context) {
+      Object value = resolve(context);
+      return value == null ? toNumber(defaultValue(context)) : toNumber(value);
+    }
+
+    @Override
+    boolean evaluateTruthy(Map<String, Object> context) {
+      Object value = resolve(context);
+      return value == null ? truthy(defaultValue(context)) : truthy(value);
+    }
+
+    private Object defaultValue(Map<String, Object> context) {
+      return context == null || defaultValue == null ? null : defaultValue.evaluate(null);
+    }
+
+    private Object resolve(Map<String, Object> context) {
+      if (context == null) {
+        return null;
+      }
+      if (key != null) {
+        return resolveDynamic(context, key.evaluate(context));
+      }
+      if (segments == null) {
+        return context;
+      }
+      return resolve(context, segments);
+    }
+
+    private static Object resolveDynamic(Map<String, Object> context, Object name) {
+      if (name == null) {
+        return context;
+      }
+      if (name instanceof Number) {
+        return element(context, ((Number) name).intValue());
+      }
+      if (name instanceof String) {
+        String path = (String) name;
+        return path.isEmpty() ? context : resolve(context, path.split("\\."));
+      }
+      throw new IllegalArgumentException("var first argument must be null, number, or string");
+    }
+
+    private static Object resolve(Object data, String[] segments) {
+      Object current = data;
+      for (String segment : segments) {
+        current = child(current, segment);
+        if (current == null) {
+          return null;
+        }
+      }
+      return current;
+    }
+
+    private static Object child(Object data, String segment) {
+      if (data instanceof Map) {
+        return ((Map<?, ?>) data).get(segment);
+      }
+      if (data instanceof List || (data != null && data.getClass().isArray())) {
+        try {
+          return element(data, Integer.parseInt(segment));
+        } catch (NumberFormatException e) {
+          return null;
+        }
+      }
+      return null;
+    }
+
+    private static Object element(Object data, int index) {
+      if (data instanceof List) {
+        List<?> list = (List<?>) data;
+        return index >= 0 && index < list.size() ? list.get(index) : null;
+      }
+      if (data != null && data.getClass().isArray()) {
+        return index >= 0 && index < Array.getLength(data) ? Array.get(data, index) : null;
+      }
+      return null;
+    }
+  }
+
+  static final class And extends ConditionNode {
+    private final ConditionNode[] args;
+
+    And(ConditionNode[] args) {
+      this.args = args;
+    }
+
+    @Override
+    Object evaluate(Map<String, Object> context) {
+      Object result = null;
+      for (ConditionNode arg : args) {
+        result = arg.evaluate(context);
+        if (!truthy(result)) {
+          return result;
+        }
+      }
+      return result;
+    }
+
+    @Override
+    boolean evaluateTruthy(Map<String, Object> context) {
+      for (ConditionNode arg : args) {
+        if (!arg.evaluateTruthy(context)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  static final class Or extends ConditionNode {
+    private final ConditionNode[] args;
+
+    Or(ConditionNode[] args) {
+      this.args = args;
+    }
+
+    @Override
+    Object evaluate(Map<String, Object> context) {
+      Object result = null;
+      for (ConditionNode arg : args) {
+        result = arg.evaluate(context);
+        if (truthy(result)) {
+          return result;
+        }
+      }
+      return result;
+    }
+
+    @Override
+    boolean evaluateTruthy(Map<String, Object> context) {
+      for (ConditionNode arg : args) {
+        if (arg.evaluateTruthy(context)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  static final class If extends ConditionNode {
+    private final ConditionNode[] args;
+
+    If(ConditionNode[] args) {
+      this.args = args;
+    }
+
+    @Override
+    Object evaluate(Map<String, Object> context) {
+      if (args.length == 0) {
+        return null;
+      }
+      if (args.length == 1) {
+        return args[0].evaluate(context);
+      }
+      if (args.length == 2) {
+        return args[0].evaluateTruthy(context) ? args[1].evaluate(context) : null;
+      }
+      for (int i = 0; i < args.length - 1; i += 2) {
+        if (args[i].evaluateTruthy(context)) {
+          return args[i + 1].evaluate(context);
+        }
+      }
+      return (args.length & 1) == 0 ? null : args[args.length - 1].evaluate(context);
+    }
+  }
+
+  static final class Equals extends ConditionNode {
+    private final ConditionNode left;
+    private final ConditionNode right;
+    private final boolean negate;
+    private final boolean strict;
+
+    Equals(ConditionNode left, ConditionNode right, boolean negate, boolean strict) {
+      this.left = left;
+      this.right = right;
+      this.negate = negate;
+      this.strict = strict;
+    }
+
+    @Override
+    boolean isScalar() {
+      return true;
+    }
+
+    @Override
+    Object evaluate(Map<String, Object> context) {
+      return evaluateTruthy(context);
+    }
+
+    @Override
+    boolean evaluateTruthy(Map<String, Object> context) {
+      Object leftValue = left.evaluate(context);
+      Object rightValue = right.evaluate(context);
+      boolean equal =
+          strict ? strictEquals(leftValue, rightValue) : looseEquals(leftValue, rightValue);
+      return equal != negate;
+    }
+  }
+
+  static final class Compare extends ConditionNode {
+    private final String operator;
+    private final ConditionNode[] args;
+
+    Compare(String operator, ConditionNode[] args) {
+      this.operator = operator;
+      this.args = args;
+    }
+
+    @Override
+    boolean isScalar() {
+      return true;
+    }
+
+    @Override
+    Object evaluate(Map<String, Object> context) {
+      return evaluateTruthy(context);
+    }
+
+    @Override
+    boolean evaluateTruthy(Map<String, Object> context) {
+      double first = args[0].evaluateNumber(context);
+      double second = args[1].evaluateNumber(context);
+      if (args.length == 3) {
+        double third = args[2].evaluateNumber(context);
+        if (operator.length() == 1) {
+          return first < second && second < third;
+        }
+        return first <= second && second <= third;
+      }
+      switch (operator) {
+        case "<":
+          return first < second;
+        case "<=":
+          return first <= second;
+        case ">":
+          return first > second;
+        default:
+          return first >= second;
+      }
+    }
+  }
+
+  static class In extends ConditionNode {
+    private final ConditionNode needle;
+    private final ConditionNode haystack;
+
+    In(ConditionNode needle, ConditionNode haystack) {
+      this.needle = needle;
+      this.haystack = haystack;
+    }
+
+    static ConditionNode of(ConditionNode needle, ConditionNode haystack) {
+      if (haystack instanceof ConstantArray) {
+        Set<Object> values = new HashSet<>(((ConstantArray) haystack).getValues());
+        return new InSet(needle, values);
+      }
+      return new In(needle, haystack);
+    }
+
+    @Override
+    boolean isScalar() {
+      return true;
+    }
+
+    @Override
+    Object evaluate(Map<String, Object> context) {
+      return evaluateTruthy(context);
+    }
+
+    @Override
+    boolean evaluateTruthy(Map<String, Object> context) {
+      Object value = needle.evaluate(context);
+      return contains(haystack.evaluate(context), value);
+    }
+  }
+
+  static final class InSet extends ConditionNode {
+    private final ConditionNode needle;
+    private final Set<Object> values;
+
+    InSet(ConditionNode needle, Set<Object> values) {
+      this.needle = needle;
+      this.values = values;
+    }
+
+    @Override
+    boolean isScalar() {
+      return true;
+    }
+
+    @Override
+    Object evaluate(Map<String, Object> context) {
+      return evaluateTruthy(context);
+    }
+
+    @Override
+    boolean evaluateTruthy(Map<String, Object> context) {
+      return values.contains(needle.evaluate(context));
+    }
+  }
+
+  static final class Not extends ConditionNode {
+    private final ConditionNode arg;
+    private final boolean doubleNegation;
+
+    Not(ConditionNode arg, boolean doubleNegation) {
+      this.arg = arg;
+      this.doubleNegation = doubleNegation;
+    }
+
+    @Override
+    boolean isScalar() {
+      return true;
+    }
+
+    @Override
+    Object evaluate(Map<String, Object> context) {
+      return evaluateTruthy(context);
+    }
+
+    @Override
+    boolean evaluateTruthy(Map<String, Object> context) {
+      boolean result = arg != null && arg.evaluateTruthy(context);
+      return result == doubleNegation;
+    }
+  }
+
+  /** Operator evaluated over its fully evaluated arguments. */
+  static final class Operation extends ConditionNode {
+    private final String operator;
+    private final ConditionNode[] args;
+
+    Operation(String operator, ConditionNode[] args) {
+      this.operator = operator;
+      this.args = args;
+    }
+
+    @Override
+    Object evaluate(Map<String, Object> context) {
+      List<Object> values = new ArrayList<>(args.length);
+      for (ConditionNode arg : args) {
+        values.add(arg.evaluate(context));
+      }
+      if (values.size() == 1) {
+        Object single = values.get(0);
+        if (single instanceof Collection) {
+          values = new ArrayList<>((Collection<?>) single);
+        } else if (single != null && single.getClass().isArray()) {
+          values = new ArrayList<>();
+          for (int i = 0, length = Array.getLength(single); i < length; i++) {
+            values.add(Array.get(single, i));
+          }
+        }
+      }
+      for (int i = 0; i < values.size(); i++) {
+        values.set(i, normalize(values.get(i)));
+      }
+      return Operations.apply(operator, values);
+    }
+  }
+
+  /** Implementations of the operators over already evaluated arguments. */
+  static final class Operations {
+
+    private static final Set<String> SUPPORTED =
+        new HashSet<>(
+            Arrays.asList(
+                "==", "!=", "===", "!==", "<", "<=", ">", ">=", "in", "!", "!!", "substr", "cat",
+                "min", "max", "+", "-", "*", "/", "%"));
+
+    private Operations() {}
+
+    static boolean isSupported(String operator) {
+      return SUPPORTED.contains(operator);
+    }
+
+    static Object apply(String operator, List<Object> values) {
+      switch (operator) {
+        case "==":
+        case "!=":
+        case "===":
+        case "!==":
+          if (values.size() != 2) {
+            throw new IllegalArgumentException("equality expressions expect exactly 2 arguments");
+          }
+          boolean equal =
+              operator.length() == 3
+                  ? ConditionNode.strictEquals(values.get(0), values.get(1))
+                  : ConditionNode.looseEquals(values.get(0), values.get(1));
+          return equal != operator.startsWith("!");
+        case "<":
+        case "<=":
+        case ">":
+        case ">=":
+          return compare(operator, values);
+        case "in":
+          return values.size() >= 2 && ConditionNode.contains(values.get(1), values.get(0));
+        case "!":
+        case "!!":
+          boolean truthy = !values.isEmpty() && ConditionNode.truthy(values.get(0));
+          return truthy == (operator.length() == 2);
+        case "substr":
+          return substring(values);
+        case "cat":
+          return concatenate(values);
+        default:
+          return arithmetic(operator, values);
+      }
+    }
+
+    private static boolean compare(String operator, List<Object> values) {
+      int size = values.size();
+      if (size < 2) {
+        throw new IllegalArgumentException("'" + operator + "' requires at least 2 arguments");
+      }
+      if (size > 3) {
+        throw new IllegalArgumentException(
+            "'" + operator + "' does not support more than 3 arguments");
+      }
+      double[] numbers = new double[size];
+      for (int i = 0; i < size; i++) {
+        Object value = values.get(i);
+        if (!(value instanceof Number) && !(value instanceof String)) {
+          return false;
+        }
+        numbers[i] = ConditionNode.toNumber(value);
+        if (Double.isNaN(numbers[i])) {
+          return false;
+        }
+      }
+      if (size == 3) {
+        switch (operator) {
+          case "<":
+            return numbers[0] < numbers[1] && numbers[1] < numbers[2];
+          case "<=":
+            return numbers[0] <= numbers[1] && numbers[1] <= numbers[2];
+          default:
+            throw new IllegalArgumentException(
+                "'" + operator + "' does not support between comparisons");
+        }
+      }
+      switch (operator) {
+        case "<":
+          return numbers[0] < numbers[1];
+        case "<=":
+          return numbers[0] <= numbers[1];
+        case ">":
+          return numbers[0] > numbers[1];
+        default:
+          return numbers[0] >= numbers[1];
+      }
+    }
+
+    private static String substring(List<Object> values) {
+      if (values.size() < 2 || values.size() > 3) {
+        throw new IllegalArgumentException("substr expects 2 or 3 arguments");
+      }
+      if (!(values.get(1) instanceof Number)
+          || (values.size() == 3 && !(values.get(2) instanceof Number))) {
+        throw new IllegalArgumentException("substr expects numeric start and length arguments");
+      }
+      String value = String.valueOf(values.get(0));
+      int length = value.length();
+      int start = ((Number) values.get(1)).intValue();
+      if (start < 0) {
+        start = Math.max(0, length + start);
+      }
+      int end = length;
+      if (values.size() == 3) {
+        int count = ((Number) values.get(2)).intValue();
+        end = count < 0 ? length + count : start + count;
+      }
+      if (start > length || end > length || start > end) {
+        return "";
+      }
+      return value.substring(start, end);
+    }
+
+    private static String concatenate(List<Object> values) {
+      StringBuilder result = new StringBuilder();
+      for (Object value : values) {
+        if (value instanceof Double && ((Double) value) == Math.rint((Double) value)) {
+          result.append(((Double) value).longValue());
+        } else {
+          result.append(value);
+        }
+      }
+      return result.toString();
+    }
+
+    private static Double arithmetic(String operator, List<Object> values) {
+      if (values.isEmpty()) {
+        return null;
+      }
+      if (values.size() == 1) {
+        if ("-".equals(operator) && values.get(0) instanceof Number) {
+          return -((Number) values.get(0)).doubleValue();
+        }
+        if ("/".equals(operator)) {
+          return null;
+        }
+      }
+      double[] numbers = new double[values.size()];
+      for (int i = 0; i < numbers.length; i++) {
+        Object value = values.get(i);
+        if (!(value instanceof Number) && !(value instanceof String)) {
+          return null;
+        }
+        numbers[i] = ConditionNode.toNumber(value);
+        if (Double.isNaN(numbers[i])) {
+          return null;
+        }
+      }
+      double result = numbers[0];
+      boolean binary = "-".equals(operator) || "/".equals(operator) || "%".equals(operator);
+      int count = binary ? Math.min(2, numbers.length) : numbers.length;
+      for (int i = 1; i < count; i++) {
+        result = reduce(operator, result, numbers[i]);
+      }
+      return result;
+    }
+
+    private static double reduce(String operator, double accumulator, double value) {
+      switch (operator) {
+        case "min":
+          return Math.min(accumulator, value);
+        case "max":
+          return Math.max(accumulator, value);
+        case "+":
+          return accumulator + value;
+        case "-":
+          return accumulator - value;
+        case "*":
+          return accumulator * value;
+        case "/":
+          return accumulator / value;
+        default:
+          return accumulator % value;
+      }
+    }
+  }
+
+  static final class Invalid extends ConditionNode {
+    private final String message;
+
+    Invalid(String message) {
+      this.message = message;
+    }
+
+    @Override
+    Object evaluate(Map<String, Object> context) {
+      throw new IllegalArgumentException(message);
+    }
+  }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Node of a compiled rule condition. Values follow JsonLogic semantics: numbers are evaluated as
+ * doubles, and comparisons use the loose JsonLogic conversions between numbers, strings and
+ * booleans.
+ */
+abstract class ConditionNode {
+
+  abstract Object evaluate(Map<String, Object> context);
+
+  /**
+   * Evaluates this node as a number, without boxing when the underlying value is already numeric.
+   *
+   * @return the numeric value, or {@link Double#NaN} when the value is not a number
+   */
+  double evaluateNumber(Map<String, Object> context) {
+    return toNumber(evaluate(context));
+  }
+
+  boolean evaluateTruthy(Map<String, Object> context) {
+    return truthy(evaluate(context));
+  }
+
+  /** @return true when this node never evaluates to an array */
+  boolean isScalar() {
+    return false;
+  }
+
+  static boolean truthy(Object value) {
+    if (value == null) {
+      return false;
+    }
+    if (value instanceof Boolean) {
+      return (Boolean) value;
+    }
+    if (value instanceof Number) {
+      double number = ((Number) value).doubleValue();
+      return number != 0.0 && !Double.isNaN(number);
+    }
+    if (value instanceof String) {
+      return !((String) value).isEmpty();
+    }
+    if (value instanceof Collection) {
+      return !((Collection<?>) value).isEmpty();
+    }
+    if (value.getClass().isArray()) {
+      return Array.getLength(value) > 0;
+    }
+    return true;
+  }
+
+  static double toNumber(Object value) {
+    if (value instanceof Number) {
+      return ((Number) value).doubleValue();
+    }
+    if (value instanceof String) {
+      return parseNumber((String) value);
+    }
+    return Double.NaN;
+  }
+
+  static double parseNumber(String value) {
+    try {
+      return Double.parseDouble(value);
+    } catch (NumberFormatException e) {
+      return Double.NaN;
+    }
+  }
+
+  static Object normalize(Object value) {
+    if (value instanceof Number && !(value instanceof Double)) {
+      return ((Number) value).doubleValue();
+    }
+    return value;
+  }
+
+  static boolean looseEquals(Object left, Object right) {
+    if (left instanceof Number && right instanceof Number) {
+      return ((Number) left).doubleValue() == ((Number) right).doubleValue();
+    }
+    if (left == right) {
+      return true;
+    }
+    if (left == null || right == null) {
+      return false;
+    }
+    if (left instanceof String && right instanceof String) {
+      return left.equals(right);
+    }
+    if (left instanceof Boolean && right instanceof Boolean) {
+      return left.equals(right);
+    }
+    if (left instanceof Number && right instanceof String) {
+      return numberEqualsString((Number) left, (String) right);
+    }
+    if (left instanceof String && right instanceof Number) {
+      return numberEqualsString((Number) right, (String) left);
+    }
+    if (left instanceof Number && right instanceof Boolean) {
+      return numberEqualsBoolean((Number) left, (Boolean) right);
+    }
+    if (left instanceof Boolean && right instanceof Number) {
+      return numberEqualsBoolean((Number) right, (Boolean) left);
+    }
+    if (left instanceof String && right instanceof Boolean) {
+      return truthy(left) == (Boolean) right;
+    }
+    if (left instanceof Boolean && right instanceof String) {
+      return truthy(right) == (Boolean) left;
+    }
+    return !truthy(left) && !truthy(right);
+  }
+
+  static boolean strictEquals(Object left, Object right) {
+    if (left instanceof Number && right instanceof Number) {
+      return ((Number) left).doubleValue() == ((Number) right).doubleValue();
+    }
+    if (left == right) {
+      return true;
+    }
+    return left != null && left.equals(right);
+  }
+
+  static boolean numberEqualsString(Number number, String value) {
+    if (value.trim().isEmpty()) {
+      return number.doubleValue() == 0.0;
+    }
+    return number.doubleValue() == parseNumber(value);
+  }
+
+  private static boolean numberEqualsBoolean(Number number, Boolean value) {
+    return number.doubleValue() == (value ? 1.0 : 0.0);
+  }
+
+  static boolean contains(Object haystack, Object needle) {
+    if (haystack instanceof String) {
+      return ((String) haystack).contains(String.valueOf(needle));
+    }
+    Object normalizedNeedle = normalize(needle);
+    if (haystack instanceof Collection) {
+      for (Object element : (Collection<?>) haystack) {
+        if (strictEquals(normalize(element), normalizedNeedle)) {
+          return true;
+        }
+      }
+      return false;
+    }
+    if (haystack != null && haystack.getClass().isArray()) {
+      for (int i = 0, length = Array.getLength(haystack); i < length; i++) {
+        if (strictEquals(normalize(Array.get(haystack, i)), normalizedNeedle)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+}
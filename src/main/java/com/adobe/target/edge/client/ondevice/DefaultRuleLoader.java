@@ -23,10 +23,14 @@ import com.adobe.target.edge.client.model.ondevice.OnDeviceDecisioningRuleSet;
 import com.adobe.target.edge.client.service.TelemetryService;
 import com.adobe.target.edge.client.utils.MathUtils;
 import com.adobe.target.edge.client.utils.TimingTool;
-import java.nio.charset.StandardCharsets;
+import com.google.common.io.ByteStreams;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.Date;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import kong.unirest.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,30 +39,55 @@ public class DefaultRuleLoader implements RuleLoader {
 
   private static final Logger logger = LoggerFactory.getLogger(DefaultRuleLoader.class);
 
-  private static final String MAJOR_VERSION = "1";
-
   private static final int MAX_RETRIES = 10;
 
+  private static final Backoff RETRY_BACKOFF = new Backoff(1000, 60 * 1000);
+
   private static final String EMPTY_STRING = "";
 
-  private OnDeviceDecisioningRuleSet latestRules;
-  private String lastETag;
+  private static final String TIMING_PARSE_ARTIFACT = "parseArtifact";
+
+  private static final String TIMING_COMPILE_ARTIFACT = "compileArtifact";
+
+  private static final AtomicReferenceFieldUpdater<DefaultRuleLoader, RuleSetSnapshot> SNAPSHOT =
+      AtomicReferenceFieldUpdater.newUpdater(
+          DefaultRuleLoader.class, RuleSetSnapshot.class, "snapshot");
+
+  private static final AtomicReferenceFieldUpdater<DefaultRuleLoader, ArtifactFetchMetrics>
+      FETCH_METRICS =
+          AtomicReferenceFieldUpdater.newUpdater(
+              DefaultRuleLoader.class, ArtifactFetchMetrics.class, "fetchMetrics");
+
+  // published to request threads; null until the first rule set is installed
+  private volatile RuleSetSnapshot snapshot;
+  private volatile ArtifactFetchMetrics fetchMetrics;
+  private volatile String lastETag;
+  private ArtifactCache artifactCache;
   private ClientConfig clientConfig;
   private TelemetryService telemetryService;
 
   private UnirestInstance unirestInstance = Unirest.spawnInstance();
-  private Timer timer = new Timer(this.getClass().getCanonicalName());
-  private boolean started = false;
+  private volatile ScheduledFuture<?> pollingTask;
+  private volatile boolean started = false;
   private boolean succeeded = false;
-  private int retries = 0;
-  private int numFetches = 0;
-  private Date lastFetch = null;
+  private volatile int retries = 0;
 
   public DefaultRuleLoader() {}
 
   @Override
   public OnDeviceDecisioningRuleSet getLatestRules() {
-    return latestRules;
+    return getSnapshot().getRuleSet();
+  }
+
+  @Override
+  public RuleSetSnapshot getSnapshot() {
+    return orEmpty(this.snapshot);
+  }
+
+  @Override
+  public ArtifactFetchMetrics getFetchMetrics() {
+    ArtifactFetchMetrics metrics = this.fetchMetrics;
+    return metrics == null ? ArtifactFetchMetrics.EMPTY : metrics;
   }
 
   @Override
@@ -73,17 +102,11 @@ public class DefaultRuleLoader implements RuleLoader {
     ObjectMapper mapper = new JacksonObjectMapper();
     byte[] artifactPayload = clientConfig.getOnDeviceArtifactPayload();
     if (artifactPayload != null) {
-      String payload = new String(artifactPayload, StandardCharsets.UTF_8);
-      OnDeviceDecisioningRuleSet ruleSet =
-          mapper.readValue(payload, new GenericType<OnDeviceDecisioningRuleSet>() {});
+      OnDeviceDecisioningRuleSet ruleSet = RuleSetParser.parse(artifactPayload);
       String invalidMessage = invalidRuleSetMessage(ruleSet, null);
       if (invalidMessage == null) {
         setLatestRules(ruleSet);
-        OnDeviceDecisioningHandler handler = clientConfig.getOnDeviceDecisioningHandler();
-        if (handler != null && !succeeded) {
-          succeeded = true;
-          handler.onDeviceDecisioningReady();
-        }
+        notifyReady(clientConfig);
       } else {
         logger.warn(invalidMessage);
         TargetExceptionHandler handler = clientConfig.getExceptionHandler();
@@ -92,6 +115,14 @@ public class DefaultRuleLoader implements RuleLoader {
         }
       }
     }
+    Path cacheDirectory = clientConfig.getOnDeviceArtifactCacheDirectory();
+    this.artifactCache =
+        cacheDirectory != null
+            ? new ArtifactCache(cacheDirectory, getLocalDecisioningUrl(clientConfig))
+            : null;
+    if (artifactPayload == null && this.artifactCache != null) {
+      loadCachedRules(clientConfig);
+    }
     started = true;
     retries = 0;
     if (unirestInstance != null) {
@@ -103,8 +134,10 @@ public class DefaultRuleLoader implements RuleLoader {
               clientConfig.getMaxConnectionsTotal(), clientConfig.getMaxConnectionsPerHost())
           .automaticRetries(clientConfig.isEnabledRetries())
           .enableCookieManagement(false)
+          .requestCompression(false)
           .setObjectMapper(mapper)
-          .setDefaultHeader("Accept", "application/json");
+          .setDefaultHeader("Accept", "application/json")
+          .setDefaultHeader("Accept-Encoding", ArtifactDownload.ACCEPT_ENCODING);
       if (clientConfig.isProxyEnabled()) {
         ClientProxyConfig proxyConfig = clientConfig.getProxyConfig();
         if (proxyConfig.isAuthProxy()) {
@@ -128,8 +161,45 @@ public class DefaultRuleLoader implements RuleLoader {
     this.scheduleTimer(0);
   }
 
+  /**
+   * Serves the artifact cached by a previous run until the first download completes. Its ETag is
+   * kept so that the first poll only downloads the artifact again if it has changed.
+   */
+  private void loadCachedRules(ClientConfig clientConfig) {
+    CompiledArtifact cached = this.artifactCache.read();
+    if (cached == null) {
+      return;
+    }
+    OnDeviceDecisioningRuleSet ruleSet = cached.getRuleSet();
+    String invalidMessage = invalidRuleSetMessage(ruleSet, null);
+    if (invalidMessage != null) {
+      logger.warn("Ignoring cached local-decisioning rule set: " + invalidMessage);
+      return;
+    }
+    setLatestETag(cached.getETag());
+    setLatestRules(ruleSet);
+    logger.debug("Loaded cached local-decisioning rule set from {}", artifactCache.getFile());
+    notifyReady(clientConfig);
+  }
+
+  private void notifyReady(ClientConfig clientConfig) {
+    OnDeviceDecisioningHandler handler = clientConfig.getOnDeviceDecisioningHandler();
+    if (handler != null && markSucceeded()) {
+      handler.onDeviceDecisioningReady();
+    }
+  }
+
+  private synchronized boolean markSucceeded() {
+    if (succeeded) {
+      return false;
+    }
+    succeeded = true;
+    return true;
+  }
+
   public void stop() {
-    this.timer.cancel();
+    this.started = false;
+    BackgroundScheduler.cancel(this.pollingTask);
     if (this.unirestInstance != null) {
       this.unirestInstance.shutDown();
     }
@@ -145,53 +215,49 @@ public class DefaultRuleLoader implements RuleLoader {
     this.started = false;
     this.succeeded = false;
     this.retries = 0;
-    this.numFetches = 0;
-    this.lastFetch = null;
     this.lastETag = null;
-    this.latestRules = null;
+    this.snapshot = null;
+    this.fetchMetrics = null;
   }
 
-  private void scheduleTimer(long delay) {
-    if (this.timer != null) {
-      this.timer.cancel();
+  private synchronized void scheduleTimer(long delay) {
+    BackgroundScheduler.cancel(this.pollingTask);
+    if (!this.started) {
+      return;
+    }
+    this.pollingTask =
+        BackgroundScheduler.scheduleBlockingWithFixedDelay(this::poll, delay, getPollingInterval());
+    if (!this.started) {
+      // stopped while scheduling
+      BackgroundScheduler.cancel(this.pollingTask);
+    }
+  }
+
+  private void poll() {
+    boolean success = loadRules(clientConfig);
+    OnDeviceDecisioningHandler handler = clientConfig.getOnDeviceDecisioningHandler();
+    if (!success && getLatestRules() == null) {
+      // retry if initial rules file download fails
+      String message;
+      if (retries++ < MAX_RETRIES) {
+        long retryDelay = RETRY_BACKOFF.delayMillis(retries);
+        message =
+            String.format(
+                "Download of local-decisioning rules failed, retrying in %s ms", retryDelay);
+        logger.debug(message);
+        scheduleTimer(retryDelay);
+      } else {
+        message = "Exhausted retries trying to download local-decisioning rules.";
+        logger.warn(message);
+      }
+      if (handler != null) {
+        handler.artifactDownloadFailed(new TargetClientException(message));
+      }
+    } else {
+      notifyReady(clientConfig);
+      long fetchedAt = System.currentTimeMillis();
+      SNAPSHOT.getAndUpdate(this, current -> orEmpty(current).withFetch(fetchedAt));
     }
-    this.timer = new Timer(this.getClass().getCanonicalName());
-    this.timer.schedule(
-        new TimerTask() {
-          @Override
-          public void run() {
-            boolean success = DefaultRuleLoader.this.loadRules(clientConfig);
-            OnDeviceDecisioningHandler handler = clientConfig.getOnDeviceDecisioningHandler();
-            if (!success && DefaultRuleLoader.this.latestRules == null) {
-              // retry if initial rules file download fails
-              String message;
-              if (DefaultRuleLoader.this.retries++ < MAX_RETRIES) {
-                long retryDelay = DefaultRuleLoader.this.retries * 1000;
-                message =
-                    String.format(
-                        "Download of local-decisioning rules failed, retrying in %s ms",
-                        retryDelay);
-                logger.debug(message);
-                scheduleTimer(retryDelay);
-              } else {
-                message = "Exhausted retries trying to download local-decisioning rules.";
-                logger.warn(message);
-              }
-              if (handler != null) {
-                handler.artifactDownloadFailed(new TargetClientException(message));
-              }
-            } else {
-              if (handler != null && !succeeded) {
-                succeeded = true;
-                handler.onDeviceDecisioningReady();
-              }
-              DefaultRuleLoader.this.numFetches++;
-              DefaultRuleLoader.this.lastFetch = new Date();
-            }
-          }
-        },
-        delay,
-        getPollingInterval());
   }
 
   public long getPollingInterval() {
@@ -199,11 +265,11 @@ public class DefaultRuleLoader implements RuleLoader {
   }
 
   public int getNumFetches() {
-    return numFetches;
+    return getSnapshot().getNumFetches();
   }
 
   public Date getLastFetch() {
-    return lastFetch;
+    return getSnapshot().getLastFetch();
   }
 
   public String getLocation() {
@@ -218,12 +284,61 @@ public class DefaultRuleLoader implements RuleLoader {
     return getRequest;
   }
 
-  protected HttpResponse<OnDeviceDecisioningRuleSet> executeRequest(GetRequest getRequest) {
-    return getRequest.asObject(new GenericType<OnDeviceDecisioningRuleSet>() {});
+  /**
+   * Downloads and parses the artifact, decompressing it as it is read. The body is streamed into
+   * the parser, unless an {@link OnDeviceDecisioningHandler} or an artifact cache directory is
+   * configured, in which case it is read once into a byte array so the same bytes can also be
+   * handed to {@link OnDeviceDecisioningHandler#artifactDownloadSucceeded} and written to the
+   * cache.
+   */
+  protected HttpResponse<DownloadedArtifact> executeRequest(GetRequest getRequest) {
+    boolean keepArtifact =
+        clientConfig.getOnDeviceDecisioningHandler() != null || this.artifactCache != null;
+    return getRequest.asObject(
+        response -> {
+          if (response.getStatus() != 200) {
+            return null;
+          }
+          Headers headers = response.getHeaders();
+          ArtifactDownload download =
+              new ArtifactDownload(headers != null ? headers.getFirst("Content-Encoding") : null);
+          TimingTool timer = new TimingTool();
+          // the raw entity is read so the received bytes are counted before decompression
+          try (InputStream body = download.open(response.getContent())) {
+            OnDeviceDecisioningRuleSet ruleSet;
+            byte[] artifact = null;
+            if (keepArtifact) {
+              artifact = ByteStreams.toByteArray(body);
+              timer.timeStart(TIMING_PARSE_ARTIFACT);
+              ruleSet = RuleSetParser.parse(artifact);
+            } else {
+              timer.timeStart(TIMING_PARSE_ARTIFACT);
+              ruleSet = RuleSetParser.parse(body);
+            }
+            double parseTime = timer.timeEnd(TIMING_PARSE_ARTIFACT);
+            return new DownloadedArtifact(ruleSet, artifact, download, parseTime);
+          } catch (IOException e) {
+            throw new UnirestException(e);
+          }
+        });
+  }
+
+  /**
+   * Compiles the rule set, reusing the compiled rules of the current one that did not change, and
+   * then publishes it, together with the current ETag, as the next generation of the snapshot read
+   * by request threads.
+   */
+  protected synchronized void setLatestRules(OnDeviceDecisioningRuleSet ruleSet) {
+    if (ruleSet != null) {
+      int reused = ruleSet.compile(getLatestRules());
+      logger.debug("Reused {} compiled local-decisioning rules", reused);
+    }
+    String etag = this.lastETag;
+    SNAPSHOT.getAndUpdate(this, current -> orEmpty(current).withRuleSet(ruleSet, etag));
   }
 
-  protected void setLatestRules(OnDeviceDecisioningRuleSet ruleSet) {
-    this.latestRules = ruleSet;
+  private static RuleSetSnapshot orEmpty(RuleSetSnapshot snapshot) {
+    return snapshot == null ? RuleSetSnapshot.EMPTY : snapshot;
   }
 
   protected void setLatestETag(String etag) {
@@ -231,18 +346,23 @@ public class DefaultRuleLoader implements RuleLoader {
   }
 
   protected boolean loadRules(ClientConfig clientConfig) {
+    TimingTool timer = new TimingTool();
+    int status = 0;
+    boolean succeeded = false;
+    DownloadedArtifact downloaded = null;
     try {
       TargetExceptionHandler handler = clientConfig.getExceptionHandler();
       GetRequest request = generateRequest(clientConfig);
-      TimingTool timer = new TimingTool();
       timer.timeStart(TIMING_EXECUTE_REQUEST);
-      HttpResponse<OnDeviceDecisioningRuleSet> response = executeRequest(request);
+      HttpResponse<DownloadedArtifact> response = executeRequest(request);
       double artifactDownloadTime = timer.timeEnd(TIMING_EXECUTE_REQUEST);
       double artifactDownloadTimeRounded = MathUtils.roundDouble(artifactDownloadTime, 2);
       this.telemetryService.addTelemetry(artifactDownloadTimeRounded);
-      if (response.getStatus() != 200) {
-        if (response.getStatus() == 304) {
+      status = response.getStatus();
+      if (status != 200) {
+        if (status == 304) {
           // Not updated, skip
+          succeeded = true;
           return true;
         }
         String message =
@@ -258,17 +378,25 @@ public class DefaultRuleLoader implements RuleLoader {
         }
         return false;
       }
-      OnDeviceDecisioningRuleSet ruleSet = response.getBody();
+      downloaded = response.getBody();
+      OnDeviceDecisioningRuleSet ruleSet = downloaded != null ? downloaded.getRuleSet() : null;
       String invalidMessage = invalidRuleSetMessage(ruleSet, response);
       if (invalidMessage == null) {
-        setLatestETag(response.getHeaders().getFirst("ETag"));
+        String etag = response.getHeaders().getFirst("ETag");
+        setLatestETag(etag);
+        timer.timeStart(TIMING_COMPILE_ARTIFACT);
         setLatestRules(ruleSet);
+        timer.timeEnd(TIMING_COMPILE_ARTIFACT);
+        byte[] artifact = downloaded.getArtifact();
+        if (this.artifactCache != null && artifact != null) {
+          this.artifactCache.write(etag, artifact);
+        }
         OnDeviceDecisioningHandler localHandler = clientConfig.getOnDeviceDecisioningHandler();
         if (localHandler != null) {
-          localHandler.artifactDownloadSucceeded(
-              request == null ? null : request.asBytes().getBody());
+          localHandler.artifactDownloadSucceeded(artifact);
         }
-        logger.trace("rulesList={}", latestRules);
+        logger.trace("rulesList={}", ruleSet);
+        succeeded = true;
         return true;
       } else {
         logger.warn(invalidMessage);
@@ -288,29 +416,38 @@ public class DefaultRuleLoader implements RuleLoader {
       }
       logger.error("Error while getting local-decisioning rule set", t.getCause());
       return false;
+    } finally {
+      recordFetch(status, succeeded, timer.getTimings(), downloaded);
     }
   }
 
+  private void recordFetch(
+      int status, boolean succeeded, Map<String, Double> timings, DownloadedArtifact downloaded) {
+    ArtifactFetch fetch =
+        new ArtifactFetch(
+            System.currentTimeMillis(),
+            status,
+            succeeded,
+            downloaded != null ? downloaded.getContentEncoding() : null,
+            downloaded != null ? downloaded.getReceivedBytes() : 0,
+            downloaded != null ? downloaded.getDecompressedBytes() : 0,
+            timings.getOrDefault(TIMING_EXECUTE_REQUEST, 0D),
+            downloaded != null ? downloaded.getParseTime() : 0,
+            timings.getOrDefault(TIMING_COMPILE_ARTIFACT, 0D));
+    FETCH_METRICS.getAndUpdate(
+        this, current -> (current == null ? ArtifactFetchMetrics.EMPTY : current).withFetch(fetch));
+  }
+
   private String invalidRuleSetMessage(
-      OnDeviceDecisioningRuleSet ruleSet, HttpResponse<OnDeviceDecisioningRuleSet> response) {
-    if (ruleSet == null || ruleSet.getRules() == null) {
-      String message = "Unable to parse local-decisioning rule set";
-      if (response != null) {
-        message +=
-            " from: "
-                + getLocalDecisioningUrl(clientConfig)
-                + ", error: "
-                + response.getParsingError();
-      }
-      return message;
-    }
-    if (ruleSet.getVersion() == null || !ruleSet.getVersion().startsWith(MAJOR_VERSION + ".")) {
-      return "Unknown rules version: " + ruleSet.getVersion();
-    }
-    return null;
+      OnDeviceDecisioningRuleSet ruleSet, HttpResponse<DownloadedArtifact> response) {
+    String source =
+        response != null
+            ? getLocalDecisioningUrl(clientConfig) + ", error: " + response.getParsingError()
+            : null;
+    return RuleSetParser.invalidRuleSetMessage(ruleSet, source);
   }
 
-  private String getLocalDecisioningUrl(ClientConfig clientConfig) {
+  String getLocalDecisioningUrl(ClientConfig clientConfig) {
     return "https://"
         + clientConfig.getOnDeviceConfigHostname()
         + "/"
@@ -318,7 +455,7 @@ public class DefaultRuleLoader implements RuleLoader {
         + "/"
         + clientConfig.getOnDeviceEnvironment().toLowerCase()
         + "/v"
-        + MAJOR_VERSION
+        + RuleSetParser.MAJOR_VERSION
         + (clientConfig.getDefaultPropertyToken() != null
             ? "/" + clientConfig.getDefaultPropertyToken()
             : "")
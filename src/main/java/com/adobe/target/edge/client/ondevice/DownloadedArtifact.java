@@ -0,0 +1,82 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice;
+
+import com.adobe.target.edge.client.model.ondevice.OnDeviceDecisioningRuleSet;
+
+/**
+ * Result of reading an artifact response: the parsed rule set, the artifact bytes when they have to
+ * be kept, and what reading it cost.
+ */
+final class DownloadedArtifact {
+
+  private final OnDeviceDecisioningRuleSet ruleSet;
+  private final byte[] artifact;
+  private final String contentEncoding;
+  private final long receivedBytes;
+  private final long decompressedBytes;
+  private final double parseTime;
+
+  DownloadedArtifact(
+      OnDeviceDecisioningRuleSet ruleSet,
+      byte[] artifact,
+      String contentEncoding,
+      long receivedBytes,
+      long decompressedBytes,
+      double parseTime) {
+    this.ruleSet = ruleSet;
+    this.artifact = artifact;
+    this.contentEncoding = contentEncoding;
+    this.receivedBytes = receivedBytes;
+    this.decompressedBytes = decompressedBytes;
+    this.parseTime = parseTime;
+  }
+
+  DownloadedArtifact(
+      OnDeviceDecisioningRuleSet ruleSet,
+      byte[] artifact,
+      ArtifactDownload download,
+      double parseTime) {
+    this(
+        ruleSet,
+        artifact,
+        download.getContentEncoding(),
+        download.getReceivedBytes(),
+        download.getDecompressedBytes(),
+        parseTime);
+  }
+
+  OnDeviceDecisioningRuleSet getRuleSet() {
+    return ruleSet;
+  }
+
+  /** @return artifact bytes, or null if the artifact was streamed into the parser */
+  byte[] getArtifact() {
+    return artifact;
+  }
+
+  String getContentEncoding() {
+    return contentEncoding;
+  }
+
+  long getReceivedBytes() {
+    return receivedBytes;
+  }
+
+  long getDecompressedBytes() {
+    return decompressedBytes;
+  }
+
+  double getParseTime() {
+    return parseTime;
+  }
+}
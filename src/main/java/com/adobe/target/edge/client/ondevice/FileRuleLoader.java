@@ -0,0 +1,187 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+import com.adobe.target.edge.client.ClientConfig;
+import com.adobe.target.edge.client.exception.TargetClientException;
+import com.adobe.target.edge.client.service.TelemetryService;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Objects;
+import java.util.concurrent.ScheduledFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link RuleLoader} that reads the artifact from a local file, typically kept up to date by a
+ * sidecar, and loads it again shortly after the file changes. The file's directory is watched with
+ * a {@link WatchService}, and any change in it makes the loader check whether the file itself was
+ * modified, so files replaced by a rename or through a swapped symlink, as with mounted Kubernetes
+ * config maps, are picked up too. The file should be replaced atomically: an artifact read while it
+ * is only partly written is rejected and the current rules are kept until the next change.
+ *
+ * <p>The loader starts no thread of its own: the watch service is checked every 200 ms by a task on
+ * the background threads shared by all clients. The JDK's watch service may still use a thread
+ * internally for each started loader, as it does on Linux.
+ */
+public class FileRuleLoader extends InMemoryRuleLoader {
+
+  private static final Logger logger = LoggerFactory.getLogger(FileRuleLoader.class);
+
+  private static final long WATCH_INTERVAL_MILLIS = 200;
+
+  private final Path file;
+  // serializes reads of the file, so that its versions are pushed in the order they were read
+  private final Object reloadLock = new Object();
+  private WatchService watchService;
+  private ScheduledFuture<?> watchTask;
+  private FileTime lastModified;
+  private long lastSize = -1;
+
+  /** @param file artifact file, in JSON or in the binary format of the artifact cache */
+  public FileRuleLoader(Path file) {
+    this.file = Objects.requireNonNull(file, "artifact file cannot be null").toAbsolutePath();
+  }
+
+  @Override
+  public void start(ClientConfig clientConfig, TelemetryService telemetryService) {
+    super.start(clientConfig, telemetryService);
+    if (!clientConfig.isOnDeviceDecisioningEnabled()) {
+      return;
+    }
+    synchronized (this) {
+      if (this.watchService != null) {
+        return;
+      }
+      // watch before the first read, so that a change made in between is not missed
+      watch();
+    }
+    if (!reloadIfChanged()) {
+      logger.warn("Local-decisioning artifact {} not found, waiting for it to be created", file);
+    }
+  }
+
+  @Override
+  public synchronized void stop() {
+    super.stop();
+    BackgroundScheduler.cancel(this.watchTask);
+    this.watchTask = null;
+    if (this.watchService != null) {
+      try {
+        this.watchService.close();
+      } catch (IOException e) {
+        logger.debug("Error closing watch service for {}", file, e);
+      }
+      this.watchService = null;
+    }
+    synchronized (reloadLock) {
+      this.lastModified = null;
+      this.lastSize = -1;
+    }
+  }
+
+  /** Reads the file again, even if it does not look modified. */
+  @Override
+  public void refresh() {
+    synchronized (reloadLock) {
+      this.lastModified = null;
+      reloadIfChanged();
+    }
+  }
+
+  private void watch() {
+    try {
+      WatchService watchService = file.getFileSystem().newWatchService();
+      file.getParent().register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+      this.watchService = watchService;
+      this.watchTask =
+          BackgroundScheduler.scheduleWithFixedDelay(
+              () -> checkForChanges(watchService), WATCH_INTERVAL_MILLIS, WATCH_INTERVAL_MILLIS);
+    } catch (IOException e) {
+      String message = "Unable to watch local-decisioning artifact " + file;
+      logger.warn(message, e);
+      handleException(new TargetClientException(message, e));
+    }
+  }
+
+  private void checkForChanges(WatchService watchService) {
+    boolean changed = false;
+    try {
+      WatchKey key;
+      while ((key = watchService.poll()) != null) {
+        // the file may change through any entry of the directory, e.g. a symlink it resolves via
+        key.pollEvents();
+        changed = true;
+        if (!key.reset()) {
+          logger.warn("Stopped watching local-decisioning artifact {}", file);
+          synchronized (this) {
+            BackgroundScheduler.cancel(this.watchTask);
+          }
+        }
+      }
+    } catch (ClosedWatchServiceException e) {
+      // stopped
+      return;
+    }
+    if (changed) {
+      reloadIfChanged();
+    }
+  }
+
+  /** @return false if the file does not exist */
+  private boolean reloadIfChanged() {
+    synchronized (reloadLock) {
+      try {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        if (attributes.lastModifiedTime().equals(lastModified) && attributes.size() == lastSize) {
+          return true;
+        }
+        byte[] artifact = Files.readAllBytes(file);
+        this.lastModified = attributes.lastModifiedTime();
+        this.lastSize = artifact.length;
+        if (push(artifact)) {
+          logger.debug("Loaded local-decisioning artifact {}", file);
+        }
+        return true;
+      } catch (NoSuchFileException e) {
+        // being replaced, or not created yet
+        return false;
+      } catch (IOException e) {
+        String message = "Unable to read local-decisioning artifact " + file;
+        logger.warn(message, e);
+        handleException(new TargetClientException(message, e));
+        return true;
+      }
+    }
+  }
+
+  /** @return 0, the file is watched rather than polled */
+  @Override
+  public long getPollingInterval() {
+    return 0;
+  }
+
+  @Override
+  public String getLocation() {
+    return file.toUri().toString();
+  }
+}
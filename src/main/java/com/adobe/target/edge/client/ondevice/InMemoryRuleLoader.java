@@ -0,0 +1,180 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice;
+
+import com.adobe.target.edge.client.ClientConfig;
+import com.adobe.target.edge.client.exception.TargetClientException;
+import com.adobe.target.edge.client.exception.TargetExceptionHandler;
+import com.adobe.target.edge.client.model.ondevice.OnDeviceDecisioningHandler;
+import com.adobe.target.edge.client.model.ondevice.OnDeviceDecisioningRuleSet;
+import com.adobe.target.edge.client.service.TelemetryService;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link RuleLoader} that never fetches anything itself: the application pushes every artifact with
+ * {@link #push(byte[])}, for example when it receives one through its own distribution
+ * infrastructure. Pass it to {@link ClientConfig.ClientConfigBuilder#onDeviceRuleLoader} to use it
+ * instead of polling the artifact location.
+ *
+ * <p>Artifacts may be pushed before the client is started. An {@code onDeviceArtifactPayload} set
+ * in the client config is pushed on start.
+ */
+public class InMemoryRuleLoader implements RuleLoader {
+
+  private static final Logger logger = LoggerFactory.getLogger(InMemoryRuleLoader.class);
+
+  private final AtomicReference<RuleSetSnapshot> snapshot =
+      new AtomicReference<>(RuleSetSnapshot.EMPTY);
+  private volatile ClientConfig clientConfig;
+  private boolean started = false;
+  private boolean succeeded = false;
+
+  public InMemoryRuleLoader() {}
+
+  @Override
+  public void start(ClientConfig clientConfig, TelemetryService telemetryService) {
+    if (!clientConfig.isOnDeviceDecisioningEnabled()) {
+      return;
+    }
+    synchronized (this) {
+      if (started) {
+        return;
+      }
+      this.clientConfig = clientConfig;
+      this.started = true;
+    }
+    byte[] artifactPayload = clientConfig.getOnDeviceArtifactPayload();
+    if (artifactPayload != null) {
+      push(artifactPayload);
+    } else if (getLatestRules() != null) {
+      notifyReady();
+    }
+  }
+
+  @Override
+  public synchronized void stop() {
+    this.started = false;
+    this.succeeded = false;
+  }
+
+  /** Nothing to fetch, the rule set in use only changes when an artifact is pushed. */
+  @Override
+  public void refresh() {}
+
+  /**
+   * Parses, validates and compiles the artifact and installs it as the rule set in use. Rules that
+   * did not change since the previous artifact keep their compiled form. An artifact that cannot be
+   * used is reported to the exception handler and leaves the current rule set in place. The
+   * handlers are called after the rule set is installed, without holding this loader's lock.
+   *
+   * @param artifact artifact in JSON or in the binary format of the artifact cache
+   * @return true if the artifact was installed
+   */
+  public boolean push(byte[] artifact) {
+    OnDeviceDecisioningRuleSet ruleSet;
+    try {
+      ruleSet = RuleSetParser.parse(artifact);
+    } catch (RuntimeException e) {
+      String message = "Unable to parse local-decisioning rule set from " + getLocation();
+      logger.warn(message, e);
+      handleException(new TargetClientException(message, e));
+      return false;
+    }
+    String invalidMessage = RuleSetParser.invalidRuleSetMessage(ruleSet, null);
+    if (invalidMessage != null) {
+      logger.warn(invalidMessage);
+      handleException(new TargetClientException(invalidMessage));
+      return false;
+    }
+    boolean notify;
+    synchronized (this) {
+      // compiled and installed together, so that concurrent pushes each reuse the rules before them
+      int reused = ruleSet.compile(getLatestRules());
+      logger.debug("Reused {} compiled local-decisioning rules", reused);
+      long loadedAt = System.currentTimeMillis();
+      snapshot.getAndUpdate(current -> current.withRuleSet(ruleSet, null).withFetch(loadedAt));
+      notify = started;
+    }
+    ClientConfig clientConfig = this.clientConfig;
+    OnDeviceDecisioningHandler handler =
+        clientConfig != null ? clientConfig.getOnDeviceDecisioningHandler() : null;
+    if (handler != null && notify) {
+      handler.artifactDownloadSucceeded(artifact);
+    }
+    notifyReady();
+    return true;
+  }
+
+  private void notifyReady() {
+    ClientConfig clientConfig = this.clientConfig;
+    if (clientConfig == null || !markSucceeded()) {
+      return;
+    }
+    OnDeviceDecisioningHandler handler = clientConfig.getOnDeviceDecisioningHandler();
+    if (handler != null) {
+      handler.onDeviceDecisioningReady();
+    }
+  }
+
+  private synchronized boolean markSucceeded() {
+    if (!started || succeeded) {
+      return false;
+    }
+    succeeded = true;
+    return true;
+  }
+
+  void handleException(TargetClientException e) {
+    ClientConfig clientConfig = this.clientConfig;
+    TargetExceptionHandler handler =
+        clientConfig != null ? clientConfig.getExceptionHandler() : null;
+    if (handler != null) {
+      handler.handleException(e);
+    }
+  }
+
+  @Override
+  public OnDeviceDecisioningRuleSet getLatestRules() {
+    return snapshot.get().getRuleSet();
+  }
+
+  @Override
+  public RuleSetSnapshot getSnapshot() {
+    return snapshot.get();
+  }
+
+  /** @return 0, artifacts are pushed rather than polled */
+  @Override
+  public long getPollingInterval() {
+    return 0;
+  }
+
+  /** @return number of artifacts installed */
+  @Override
+  public int getNumFetches() {
+    return snapshot.get().getNumFetches();
+  }
+
+  /** @return time the last artifact was installed, or null */
+  @Override
+  public Date getLastFetch() {
+    return snapshot.get().getLastFetch();
+  }
+
+  @Override
+  public String getLocation() {
+    return "memory";
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Layer of a request context. Each layer holds only its own values and reads through to its parent,
+ * so the request, details and rule layers of a request share the values above them without copying.
+ * Values may be computed on first read, so that a user agent or URL is only parsed when a rule
+ * reads it. Iterating a layer computes every value it can see. Contexts are confined to the thread
+ * executing the request.
+ */
+final class LazyContext extends AbstractMap<String, Object> {
+
+  private final Map<String, Object> parent;
+  private Map<String, Object> values;
+
+  LazyContext() {
+    this(null);
+  }
+
+  /**
+   * Creates a layer over the given context. The parent is never copied or modified, and values put
+   * in this layer shadow the parent's.
+   *
+   * @param parent context to read through to, or null
+   */
+  LazyContext(Map<String, Object> parent) {
+    this.parent = parent;
+  }
+
+  void putLazy(String key, Supplier<?> supplier) {
+    layer().put(key, new LazyValue(supplier));
+  }
+
+  @Override
+  public Object get(Object key) {
+    if (values != null) {
+      Object value = values.get(key);
+      if (value != null || values.containsKey(key)) {
+        return resolve(value);
+      }
+    }
+    return parent == null ? null : parent.get(key);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return (values != null && values.containsKey(key))
+        || (parent != null && parent.containsKey(key));
+  }
+
+  /** Puts a value in this layer, returning the previous value of this layer only. */
+  @Override
+  public Object put(String key, Object value) {
+    return peek(layer().put(key, value));
+  }
+
+  /** Removes a value from this layer only, which reveals the parent's value for the key. */
+  @Override
+  public Object remove(Object key) {
+    return values == null ? null : peek(values.remove(key));
+  }
+
+  @Override
+  public int size() {
+    return entrySet().size();
+  }
+
+  @Override
+  public Set<Entry<String, Object>> entrySet() {
+    Map<String, Object> merged = parent == null ? new HashMap<>() : new HashMap<>(parent);
+    if (values != null) {
+      values.replaceAll((key, value) -> resolve(value));
+      merged.putAll(values);
+    }
+    return Collections.unmodifiableMap(merged).entrySet();
+  }
+
+  private Map<String, Object> layer() {
+    if (values == null) {
+      values = new HashMap<>();
+    }
+    return values;
+  }
+
+  private static Object resolve(Object value) {
+    return value instanceof LazyValue ? ((LazyValue) value).get() : value;
+  }
+
+  private static Object peek(Object value) {
+    return value instanceof LazyValue ? ((LazyValue) value).value : value;
+  }
+
+  private static final class LazyValue {
+    private Supplier<?> supplier;
+    private Object value;
+
+    private LazyValue(Supplier<?> supplier) {
+      this.supplier = supplier;
+    }
+
+    private Object get() {
+      if (supplier != null) {
+        value = supplier.get();
+        supplier = null;
+      }
+      return value;
+    }
+  }
+}
@@ -17,8 +17,6 @@ import com.adobe.target.edge.client.model.TargetDeliveryRequest;
 import com.adobe.target.edge.client.model.ondevice.OnDeviceDecisioningRule;
 import com.adobe.target.edge.client.model.ondevice.OnDeviceDecisioningRuleSet;
 import com.adobe.target.edge.client.utils.StringUtils;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.*;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
@@ -30,13 +28,11 @@ public class OnDeviceDecisioningDetailsExecutor {
       LoggerFactory.getLogger(OnDeviceDecisioningDetailsExecutor.class);
 
   private final ClientConfig clientConfig;
-  private final ObjectMapper mapper;
   private final OnDeviceDecisioningRuleExecutor ruleExecutor;
 
-  public OnDeviceDecisioningDetailsExecutor(ClientConfig clientConfig, ObjectMapper mapper) {
+  public OnDeviceDecisioningDetailsExecutor(ClientConfig clientConfig) {
     this.clientConfig = clientConfig;
-    this.mapper = mapper;
-    this.ruleExecutor = new OnDeviceDecisioningRuleExecutor(clientConfig, mapper);
+    this.ruleExecutor = new OnDeviceDecisioningRuleExecutor(clientConfig);
   }
 
   public void executeDetails(
@@ -44,6 +40,7 @@ public class OnDeviceDecisioningDetailsExecutor {
       Set<String> onDeviceAllMatchingRulesMboxes,
       Map<String, Object> localContext,
       String visitorId,
+      Map<String, Double> allocations,
       Set<String> responseTokens,
       TraceHandler traceHandler,
       OnDeviceDecisioningRuleSet ruleSet,
@@ -55,7 +52,12 @@ public class OnDeviceDecisioningDetailsExecutor {
       traceHandler.updateRequest(deliveryRequest, details, executeResponse != null);
     }
 
-    List<OnDeviceDecisioningRule> rules = detailsRules(details, ruleSet);
+    List<OnDeviceDecisioningRule> rules = null;
+    RuleIndex ruleIndex = detailsRuleIndex(details, ruleSet);
+    if (ruleIndex != null) {
+      // tracing reports every evaluated rule, so only prefilter when not tracing
+      rules = traceHandler == null ? ruleIndex.candidates(localContext) : ruleIndex.getRules();
+    }
     String propertyToken = requestPropertyToken(deliveryRequest);
     boolean handledAtLeastOnce = false;
     Set<String> skipKeySet = new HashSet<>();
@@ -68,12 +70,12 @@ public class OnDeviceDecisioningDetailsExecutor {
         if (ruleKey != null && skipKeySet.contains(ruleKey)) {
           continue;
         }
-        Map<String, Object> consequence =
+        List<Option> options =
             this.ruleExecutor.executeRule(
-                localContext, details, visitorId, rule, responseTokens, traceHandler);
+                localContext, details, visitorId, allocations, rule, responseTokens, traceHandler);
         boolean handled =
             handleResult(
-                consequence,
+                options,
                 rule,
                 details,
                 prefetchResponse,
@@ -98,19 +100,20 @@ public class OnDeviceDecisioningDetailsExecutor {
   }
 
   private boolean handleResult(
-      Map<String, Object> consequence,
+      List<Option> options,
       OnDeviceDecisioningRule rule,
       RequestDetails details,
       PrefetchResponse prefetchResponse,
       ExecuteResponse executeResponse,
       List<Notification> notifications,
       TraceHandler traceHandler) {
-    logger.trace("consequence={}", consequence);
-    if (consequence == null || consequence.isEmpty()) {
+    logger.trace("options={}", options);
+    if (options == null) {
       return false;
     }
+    RuleConsequence consequence = rule.getRuleConsequence();
     if (details instanceof ViewRequest) {
-      View view = this.mapper.convertValue(consequence, new TypeReference<View>() {});
+      View view = consequence.newView(options);
       view.setTrace(currentTrace(traceHandler));
       if (prefetchResponse != null) {
         List<View> views = prefetchResponse.getViews();
@@ -149,12 +152,7 @@ public class OnDeviceDecisioningDetailsExecutor {
       }
       return false;
     } else {
-      List<Option> options =
-          this.mapper.convertValue(
-              consequence.get("options"), new TypeReference<List<Option>>() {});
-      List<Metric> metrics =
-          this.mapper.convertValue(
-              consequence.get("metrics"), new TypeReference<List<Metric>>() {});
+      List<Metric> metrics = consequence.newMetrics();
       if (executeResponse != null) {
         Notification notification = createNotification(details, options);
         if (traceHandler != null) {
@@ -290,22 +288,19 @@ public class OnDeviceDecisioningDetailsExecutor {
     return notification;
   }
 
-  private List<OnDeviceDecisioningRule> detailsRules(
-      RequestDetails details, OnDeviceDecisioningRuleSet ruleSet) {
+  private RuleIndex detailsRuleIndex(RequestDetails details, OnDeviceDecisioningRuleSet ruleSet) {
     if (details instanceof ViewRequest) {
       ViewRequest request = (ViewRequest) details;
       String name = request.getName();
       if (name != null) {
-        return ruleSet.getRules().getViews().get(name);
+        return ruleSet.getRules().getViewRuleIndex(name);
       } else {
-        return ruleSet.getRules().getViews().values().stream()
-            .flatMap(List::stream)
-            .collect(Collectors.toList());
+        return ruleSet.getRules().getAllViewsRuleIndex();
       }
     } else if (details instanceof MboxRequest) {
-      return ruleSet.getRules().getMboxes().get(((MboxRequest) details).getName());
+      return ruleSet.getRules().getMboxRuleIndex(((MboxRequest) details).getName());
     } else {
-      return ruleSet.getRules().getMboxes().get(ruleSet.getGlobalMbox());
+      return ruleSet.getRules().getMboxRuleIndex(ruleSet.getGlobalMbox());
     }
   }
 
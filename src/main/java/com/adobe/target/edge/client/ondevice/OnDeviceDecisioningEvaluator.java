@@ -41,12 +41,24 @@ public class OnDeviceDecisioningEvaluator {
    */
   public OnDeviceDecisioningEvaluation evaluateLocalExecution(
       TargetDeliveryRequest deliveryRequest) {
+    return evaluateLocalExecution(deliveryRequest, this.ruleLoader.getLatestRules());
+  }
+
+  /**
+   * Use to determine if the given request can be fully executed locally against the given rule set
+   * or not and why.
+   *
+   * @param deliveryRequest request to examine
+   * @param ruleSet rule set to examine the request against
+   * @return LocalExecutionResult
+   */
+  public OnDeviceDecisioningEvaluation evaluateLocalExecution(
+      TargetDeliveryRequest deliveryRequest, OnDeviceDecisioningRuleSet ruleSet) {
     if (deliveryRequest == null) {
       return new OnDeviceDecisioningEvaluation(
           false, "Given request cannot be null", null, null, null);
     }
 
-    OnDeviceDecisioningRuleSet ruleSet = this.ruleLoader.getLatestRules();
     if (ruleSet == null) {
       return new OnDeviceDecisioningEvaluation(
           false, "Local-decisioning rule set not yet available", null, null, null);
@@ -86,8 +98,8 @@ public class OnDeviceDecisioningEvaluator {
     }
 
     Set<String> remoteMboxes = new HashSet<>();
-    Set<String> localMboxSet = new HashSet<>(ruleSet.getLocalMboxes());
-    Set<String> bothMboxSet = new HashSet<>(ruleSet.getRemoteMboxes());
+    Set<String> localMboxSet = ruleSet.getLocalMboxSet();
+    Set<String> bothMboxSet = ruleSet.getRemoteMboxSet();
 
     for (String mboxName : requestMboxNames) {
       if (!localMboxSet.contains(mboxName) || bothMboxSet.contains(mboxName)) {
@@ -104,13 +116,13 @@ public class OnDeviceDecisioningEvaluator {
       return Collections.emptyList();
     }
 
-    Set<String> bothViewSet = new HashSet<>(ruleSet.getRemoteViews());
+    Set<String> bothViewSet = ruleSet.getRemoteViewSet();
     if (allViews(requestViews)) {
       return new ArrayList<>(bothViewSet);
     }
 
     Set<String> remoteViews = new HashSet<>();
-    Set<String> localViewSet = new HashSet<>(ruleSet.getLocalViews());
+    Set<String> localViewSet = ruleSet.getLocalViewSet();
     for (String viewName : requestViews) {
       if (!localViewSet.contains(viewName) || bothViewSet.contains(viewName)) {
         remoteViews.add(viewName);
@@ -19,9 +19,7 @@ import com.adobe.target.edge.client.exception.TargetExceptionHandler;
 import com.adobe.target.edge.client.model.ondevice.OnDeviceDecisioningRule;
 import com.adobe.target.edge.client.ondevice.collator.GeoParamsCollator;
 import com.adobe.target.edge.client.utils.AllocationUtils;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import io.github.jamsesso.jsonlogic.JsonLogic;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -33,41 +31,42 @@ public class OnDeviceDecisioningRuleExecutor {
   private static final Logger logger =
       LoggerFactory.getLogger(OnDeviceDecisioningRuleExecutor.class);
 
-  private static final String ALLOCATION = "allocation";
+  static final String ALLOCATION = "allocation";
   private static final String CAMPAIGN_BUCKET_SALT = "0";
-  private static final String OPTIONS = "options";
   private static final String RESPONSE_TOKEN_EXECUTION_TYPE = "activity.decisioningMethod";
 
   private final ClientConfig clientConfig;
-  private final ObjectMapper mapper;
 
-  private final JsonLogic jsonLogic = new JsonLogic();
-
-  public OnDeviceDecisioningRuleExecutor(ClientConfig clientConfig, ObjectMapper mapper) {
+  public OnDeviceDecisioningRuleExecutor(ClientConfig clientConfig) {
     this.clientConfig = clientConfig;
-    this.mapper = mapper;
   }
 
-  public Map<String, Object> executeRule(
+  /**
+   * Evaluates a rule and builds the options it produces for this request.
+   *
+   * @return new options of the rule when it matched, or null when it did not match or has no
+   *     consequence
+   */
+  public List<Option> executeRule(
       Map<String, Object> localContext,
       RequestDetails details,
       String visitorId,
+      Map<String, Double> allocations,
       OnDeviceDecisioningRule rule,
       Set<String> responseTokens,
       TraceHandler traceHandler) {
-    localContext.put(ALLOCATION, computeAllocation(visitorId, rule, null));
-    Object condition = rule.getCondition();
-    logger.trace("details={}, context={}", details, localContext);
+    LazyContext ruleContext = new LazyContext(localContext);
+    ruleContext.put(ALLOCATION, allocation(visitorId, allocations, rule));
+    logger.trace("details={}, context={}", details, ruleContext);
     try {
-      String expression = this.mapper.writeValueAsString(condition);
-      logger.trace("expression={}", expression);
-      boolean matched = JsonLogic.truthy(jsonLogic.apply(expression, localContext));
+      CompiledCondition condition = rule.getCompiledCondition();
+      logger.trace("expression={}", condition);
+      boolean matched = condition.evaluate(ruleContext);
       if (traceHandler != null) {
-        traceHandler.addCampaign(rule, localContext, matched);
+        traceHandler.addCampaign(rule, ruleContext, matched);
       }
       if (matched) {
-        return replaceCampaignMacros(
-            rule, consequenceWithResponseTokens(responseTokens, rule, localContext), details);
+        return optionsWithResponseTokens(responseTokens, rule, ruleContext, details);
       }
       return null;
     } catch (Exception e) {
@@ -81,6 +80,19 @@ public class OnDeviceDecisioningRuleExecutor {
     }
   }
 
+  private Double allocation(
+      String visitorId, Map<String, Double> allocations, OnDeviceDecisioningRule rule) {
+    if (allocations == null) {
+      return computeAllocation(visitorId, rule, null);
+    }
+    Double allocation = allocations.get(rule.getActivityId());
+    if (allocation == null) {
+      allocation = computeAllocation(visitorId, rule, null);
+      allocations.put(rule.getActivityId(), allocation);
+    }
+    return allocation;
+  }
+
   private double computeAllocation(String visitorId, OnDeviceDecisioningRule rule, String salt) {
     return AllocationUtils.calculateAllocation(
         this.clientConfig.getClient(),
@@ -89,31 +101,30 @@ public class OnDeviceDecisioningRuleExecutor {
         salt == null ? CAMPAIGN_BUCKET_SALT : salt);
   }
 
-  private Map<String, Object> consequenceWithResponseTokens(
+  private List<Option> optionsWithResponseTokens(
       Set<String> responseTokenKeys,
       OnDeviceDecisioningRule rule,
-      Map<String, Object> localContext) {
-    Map<String, Object> consequence = rule.getConsequence();
-    if (consequence == null) {
+      Map<String, Object> localContext,
+      RequestDetails details) {
+    RuleConsequence consequence = rule.getRuleConsequence();
+    if (consequence.isEmpty()) {
       return null;
     }
-
-    if (responseTokenKeys.isEmpty()) {
-      return consequence;
-    }
-
-    Object options = consequence.get(OPTIONS);
+    List<Option> options = consequence.newOptions(details);
     if (options == null) {
-      return consequence;
+      return new ArrayList<>();
     }
-
-    List<Option> optionsList =
-        this.mapper.convertValue(options, new TypeReference<List<Option>>() {});
-    if (optionsList == null || optionsList.isEmpty()) {
-      return consequence;
+    if (!responseTokenKeys.isEmpty() && !options.isEmpty()) {
+      addResponseTokens(responseTokenKeys, rule, localContext, options.get(0));
     }
+    return options;
+  }
 
-    Option option = optionsList.get(0);
+  private void addResponseTokens(
+      Set<String> responseTokenKeys,
+      OnDeviceDecisioningRule rule,
+      Map<String, Object> localContext,
+      Option option) {
     Map<String, Object> responseTokens = option.getResponseTokens();
     responseTokens.put(RESPONSE_TOKEN_EXECUTION_TYPE, "on-device");
     @SuppressWarnings("unchecked")
@@ -137,7 +148,7 @@ public class OnDeviceDecisioningRuleExecutor {
 
     Map<String, Object> meta = rule.getMeta();
     if (meta == null) {
-      return updateOptions(consequence, optionsList);
+      return;
     }
     for (Map.Entry<String, Object> metaEntry : meta.entrySet()) {
       String key = metaEntry.getKey();
@@ -145,21 +156,5 @@ public class OnDeviceDecisioningRuleExecutor {
         responseTokens.put(key, metaEntry.getValue());
       }
     }
-    return updateOptions(consequence, optionsList);
-  }
-
-  private Map<String, Object> replaceCampaignMacros(
-      OnDeviceDecisioningRule rule, Map<String, Object> consequence, RequestDetails details) {
-    if (consequence == null || consequence.get(OPTIONS) == null) {
-      return consequence;
-    }
-    CampaignMacroReplacer campaignMacroReplacer =
-        new CampaignMacroReplacer(rule, consequence, details, this.mapper);
-    return updateOptions(consequence, campaignMacroReplacer.getOptions());
-  }
-
-  private Map<String, Object> updateOptions(Map<String, Object> consequence, List<Option> options) {
-    consequence.put(OPTIONS, this.mapper.convertValue(options, List.class));
-    return consequence;
   }
 }
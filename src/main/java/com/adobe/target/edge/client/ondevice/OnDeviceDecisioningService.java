@@ -59,14 +59,6 @@ public class OnDeviceDecisioningService {
   public static final String CONTEXT_KEY_CUSTOM = "mbox";
   public static final String TIMING_EXECUTE_REQUEST = "timing_execute_request";
 
-  private static final Map<String, ParamsCollator> REQUEST_PARAMS_COLLATORS =
-      new HashMap<String, ParamsCollator>() {
-        {
-          put(CONTEXT_KEY_USER, new UserParamsCollator());
-          put(CONTEXT_KEY_GEO, new GeoParamsCollator());
-        }
-      };
-
   private static final Map<String, ParamsCollator> DETAILS_PARAMS_COLLATORS =
       new HashMap<String, ParamsCollator>() {
         {
@@ -77,6 +69,8 @@ public class OnDeviceDecisioningService {
       };
 
   private final ParamsCollator timeParamsCollator = new TimeParamsCollator();
+  private final UserParamsCollator userParamsCollator;
+  private final Map<String, ParamsCollator> requestParamsCollators = new HashMap<>();
   private final ClientConfig clientConfig;
   private final ObjectMapper mapper;
   private final RuleLoader ruleLoader;
@@ -92,6 +86,9 @@ public class OnDeviceDecisioningService {
       ClientConfig clientConfig, TargetService targetService, TelemetryService telemetryService) {
     this.mapper = new JacksonObjectMapper().getMapper();
     this.clientConfig = clientConfig;
+    this.userParamsCollator = new UserParamsCollator(clientConfig.getOnDeviceUserAgentCacheSize());
+    this.requestParamsCollators.put(CONTEXT_KEY_USER, this.userParamsCollator);
+    this.requestParamsCollators.put(CONTEXT_KEY_GEO, new GeoParamsCollator());
     OnDeviceDecisioningServicesManager.OnDeviceDecisioningServices services =
         OnDeviceDecisioningServicesManager.getInstance().getServices(clientConfig, targetService);
     this.telemetryService = telemetryService;
@@ -100,7 +97,7 @@ public class OnDeviceDecisioningService {
     this.notificationService = services.getNotificationDeliveryService();
     this.clusterLocator = services.getClusterLocator();
     this.clusterLocator.start(clientConfig, targetService);
-    this.decisionHandler = new OnDeviceDecisioningDetailsExecutor(clientConfig, mapper);
+    this.decisionHandler = new OnDeviceDecisioningDetailsExecutor(clientConfig);
     this.onDeviceDecisioningEvaluator = new OnDeviceDecisioningEvaluator(this.ruleLoader);
     this.geoClient = new DefaultGeoClient();
     this.geoClient.start(clientConfig);
@@ -116,6 +113,16 @@ public class OnDeviceDecisioningService {
     this.clusterLocator.stop();
   }
 
+  /** @return number of requests whose user agent params were found in the user agent cache */
+  public long getUserAgentCacheHitCount() {
+    return this.userParamsCollator.getCacheHitCount();
+  }
+
+  /** @return number of requests whose user agent was parsed */
+  public long getUserAgentCacheMissCount() {
+    return this.userParamsCollator.getCacheMissCount();
+  }
+
   public OnDeviceDecisioningEvaluation evaluateLocalExecution(
       TargetDeliveryRequest deliveryRequest) {
     return this.onDeviceDecisioningEvaluator.evaluateLocalExecution(deliveryRequest);
@@ -123,10 +130,28 @@ public class OnDeviceDecisioningService {
 
   public CompletableFuture<TargetDeliveryResponse> executeRequestAsync(
       TargetDeliveryRequest deliveryRequest) {
-    return CompletableFuture.supplyAsync(() -> executeRequest(deliveryRequest));
+    return executeRequestAsync(deliveryRequest, null);
+  }
+
+  public CompletableFuture<TargetDeliveryResponse> executeRequestAsync(
+      TargetDeliveryRequest deliveryRequest, OnDeviceDecisioningEvaluation localEvaluation) {
+    return CompletableFuture.supplyAsync(() -> executeRequest(deliveryRequest, localEvaluation));
   }
 
   public TargetDeliveryResponse executeRequest(TargetDeliveryRequest deliveryRequest) {
+    return executeRequest(deliveryRequest, null);
+  }
+
+  /**
+   * Executes the given request locally.
+   *
+   * @param deliveryRequest request to execute
+   * @param localEvaluation result of {@link #evaluateLocalExecution} for this request when the
+   *     caller already has it, or null to evaluate it here
+   * @return TargetDeliveryResponse
+   */
+  public TargetDeliveryResponse executeRequest(
+      TargetDeliveryRequest deliveryRequest, OnDeviceDecisioningEvaluation localEvaluation) {
     TimingTool timer = new TimingTool();
     timer.timeStart(TIMING_EXECUTE_REQUEST);
 
@@ -136,7 +161,8 @@ public class OnDeviceDecisioningService {
       requestId = UUID.randomUUID().toString();
     }
 
-    OnDeviceDecisioningRuleSet ruleSet = this.ruleLoader.getLatestRules();
+    RuleSetSnapshot snapshot = this.ruleLoader.getSnapshot();
+    OnDeviceDecisioningRuleSet ruleSet = snapshot.getRuleSet();
     if (ruleSet == null) {
       DeliveryResponse deliveryResponse =
           new DeliveryResponse()
@@ -151,28 +177,45 @@ public class OnDeviceDecisioningService {
           "Local-decisioning rules not available");
     }
 
-    Map<String, Object> requestContext =
-        new HashMap<>(timeParamsCollator.collateParams(deliveryRequest, null));
-    geoLookupIfNeeded(deliveryRequest, ruleSet.isGeoTargetingEnabled());
-    collateParams(requestContext, REQUEST_PARAMS_COLLATORS, deliveryRequest, null);
-
     TraceHandler traceHandler = null;
     if (delivRequest.getTrace() != null) {
       traceHandler =
           new TraceHandler(
-              this.clientConfig, this.ruleLoader, this.mapper, ruleSet, deliveryRequest);
+              this.clientConfig, this.ruleLoader, this.mapper, snapshot, deliveryRequest);
+    }
+    Set<String> responseTokens = ruleSet.getResponseTokenSet();
+    // a traced request reports the whole context, otherwise only what the rules read is collated
+    Set<String> contextKeys = traceHandler == null ? ruleSet.getContextKeys() : null;
+    if (contextKeys != null
+        && !contextKeys.contains(CONTEXT_KEY_GEO)
+        && hasGeoTokens(responseTokens)) {
+      contextKeys = new HashSet<>(contextKeys);
+      contextKeys.add(CONTEXT_KEY_GEO);
     }
-    Set<String> responseTokens = new HashSet<>(ruleSet.getResponseTokens());
 
-    TargetDeliveryResponse targetResponse = buildDeliveryResponse(deliveryRequest, requestId);
+    LazyContext requestContext = new LazyContext();
+    requestContext.putAll(timeParamsCollator.collateParams(deliveryRequest, null));
+    geoLookupIfNeeded(deliveryRequest, ruleSet.isGeoTargetingEnabled());
+    collateParams(requestContext, contextKeys, requestParamsCollators, deliveryRequest, null);
+
+    if (localEvaluation == null) {
+      localEvaluation =
+          this.onDeviceDecisioningEvaluator.evaluateLocalExecution(deliveryRequest, ruleSet);
+    }
+    TargetDeliveryResponse targetResponse =
+        buildDeliveryResponse(deliveryRequest, requestId, localEvaluation);
     String visitorId = getOrCreateVisitorId(deliveryRequest, targetResponse);
+    // allocations depend only on activity and visitor, so they are shared by all details
+    Map<String, Double> allocations = new HashMap<>();
 
     List<RequestDetails> prefetchRequests = detailsFromPrefetch(delivRequest);
     handleDetails(
         prefetchRequests,
         requestContext,
+        contextKeys,
         deliveryRequest,
         visitorId,
+        allocations,
         responseTokens,
         traceHandler,
         ruleSet,
@@ -186,8 +229,10 @@ public class OnDeviceDecisioningService {
     handleDetails(
         executeRequests,
         requestContext,
+        contextKeys,
         deliveryRequest,
         visitorId,
+        allocations,
         responseTokens,
         traceHandler,
         ruleSet,
@@ -231,8 +276,9 @@ public class OnDeviceDecisioningService {
   }
 
   private TargetDeliveryResponse buildDeliveryResponse(
-      TargetDeliveryRequest deliveryRequest, String requestId) {
-    OnDeviceDecisioningEvaluation localEvaluation = evaluateLocalExecution(deliveryRequest);
+      TargetDeliveryRequest deliveryRequest,
+      String requestId,
+      OnDeviceDecisioningEvaluation localEvaluation) {
     int status = localEvaluation.isAllLocal() ? HttpStatus.SC_OK : HttpStatus.SC_PARTIAL_CONTENT;
     DeliveryResponse deliveryResponse =
         new DeliveryResponse()
@@ -327,22 +373,37 @@ public class OnDeviceDecisioningService {
     }
   }
 
+  private static boolean hasGeoTokens(Set<String> responseTokens) {
+    for (String token : responseTokens) {
+      if (token.startsWith(CONTEXT_KEY_GEO + ".")) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   private void collateParams(
-      Map<String, Object> localContext,
+      LazyContext localContext,
+      Set<String> contextKeys,
       Map<String, ParamsCollator> paramsCollator,
       TargetDeliveryRequest deliveryRequest,
       RequestDetails requestDetails) {
     for (Map.Entry<String, ParamsCollator> entry : paramsCollator.entrySet()) {
-      localContext.put(
-          entry.getKey(), entry.getValue().collateParams(deliveryRequest, requestDetails));
+      String key = entry.getKey();
+      if (contextKeys == null || contextKeys.contains(key)) {
+        ParamsCollator collator = entry.getValue();
+        localContext.putLazy(key, () -> collator.collateParams(deliveryRequest, requestDetails));
+      }
     }
   }
 
   private void handleDetails(
       List<RequestDetails> detailsList,
-      Map<String, Object> requestContext,
+      LazyContext requestContext,
+      Set<String> contextKeys,
       TargetDeliveryRequest deliveryRequest,
       String visitorId,
+      Map<String, Double> allocations,
       Set<String> responseTokens,
       TraceHandler traceHandler,
       OnDeviceDecisioningRuleSet ruleSet,
@@ -350,13 +411,16 @@ public class OnDeviceDecisioningService {
       ExecuteResponse executeResponse,
       List<Notification> notifications) {
     for (RequestDetails details : detailsList) {
-      Map<String, Object> detailsContext = new HashMap<>(requestContext);
-      collateParams(detailsContext, DETAILS_PARAMS_COLLATORS, deliveryRequest, details);
+      // the details layer reads through to the request layer instead of copying it
+      LazyContext detailsContext = new LazyContext(requestContext);
+      collateParams(
+          detailsContext, contextKeys, DETAILS_PARAMS_COLLATORS, deliveryRequest, details);
       this.decisionHandler.executeDetails(
           deliveryRequest,
           this.onDeviceAllMatchingRulesMboxes,
           detailsContext,
           visitorId,
+          allocations,
           responseTokens,
           traceHandler,
           ruleSet,
@@ -74,7 +74,8 @@ public class OnDeviceDecisioningServicesManager {
       ClusterLocator clusterLocator = new ClusterLocator();
       services.setNotificationDeliveryService(
           new NotificationService(targetService, clientConfig, clusterLocator));
-      services.setRuleLoader(new DefaultRuleLoader());
+      RuleLoader ruleLoader = clientConfig.getOnDeviceRuleLoader();
+      services.setRuleLoader(ruleLoader != null ? ruleLoader : new DefaultRuleLoader());
       services.setClusterLocator(clusterLocator);
       servicesMap.put(serviceKey, services);
       return services;
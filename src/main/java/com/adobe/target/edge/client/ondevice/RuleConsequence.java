@@ -0,0 +1,161 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice;
+
+import com.adobe.target.delivery.v1.model.Metric;
+import com.adobe.target.delivery.v1.model.Option;
+import com.adobe.target.delivery.v1.model.RequestDetails;
+import com.adobe.target.delivery.v1.model.View;
+import com.adobe.target.edge.client.http.JacksonObjectMapper;
+import com.adobe.target.edge.client.ondevice.CampaignMacroReplacer.ContentTemplate;
+import com.adobe.target.edge.client.utils.CollectionUtils;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consequence of a rule deserialized once per artifact into typed templates. Templates are never
+ * handed out; every matched rule gets shallow copies whose response tokens it may change, while
+ * option content is an unmodifiable structure shared by all copies unless it has campaign macros
+ * that depend on the request.
+ */
+public final class RuleConsequence {
+
+  private static final String OPTIONS = "options";
+  private static final String METRICS = "metrics";
+  private static final ObjectMapper MAPPER = new JacksonObjectMapper().getMapper();
+
+  private final boolean empty;
+  private final View view;
+  private final List<Option> options;
+  private final List<ContentTemplate> contentTemplates;
+  private final List<Metric> metrics;
+
+  private RuleConsequence(Map<String, Object> consequence, Map<String, Object> meta) {
+    this.empty = consequence == null || consequence.isEmpty();
+    if (empty) {
+      this.view = new View();
+      this.options = null;
+      this.contentTemplates = null;
+      this.metrics = null;
+      return;
+    }
+    this.view = MAPPER.convertValue(consequence, View.class);
+    List<Option> options =
+        MAPPER.convertValue(consequence.get(OPTIONS), new TypeReference<List<Option>>() {});
+    List<ContentTemplate> contentTemplates = new ArrayList<>();
+    if (options != null) {
+      for (Option option : options) {
+        ContentTemplate template =
+            CampaignMacroReplacer.compile(
+                option.getType(), CollectionUtils.immutableCopy(option.getContent()), meta);
+        option.setContent(template.getContent());
+        contentTemplates.add(template.isDynamic() ? template : null);
+      }
+    }
+    this.options = options;
+    this.contentTemplates = contentTemplates;
+    this.metrics =
+        MAPPER.convertValue(consequence.get(METRICS), new TypeReference<List<Metric>>() {});
+  }
+
+  /**
+   * @param consequence consequence of a rule, as deserialized from the artifact
+   * @param meta meta of the rule, used to resolve campaign macros
+   * @return RuleConsequence
+   */
+  public static RuleConsequence from(Map<String, Object> consequence, Map<String, Object> meta) {
+    return new RuleConsequence(consequence, meta);
+  }
+
+  /** @return true when the rule has no consequence */
+  public boolean isEmpty() {
+    return empty;
+  }
+
+  /**
+   * @param details request details the rule matched, used to replace campaign macros
+   * @return new copies of the options, or null when the consequence has none
+   */
+  public List<Option> newOptions(RequestDetails details) {
+    if (options == null) {
+      return null;
+    }
+    List<Option> copies = new ArrayList<>(options.size());
+    CampaignMacroReplacer macroReplacer = null;
+    for (int i = 0; i < options.size(); i++) {
+      Option option = options.get(i);
+      Object content = option.getContent();
+      ContentTemplate template = contentTemplates.get(i);
+      if (template != null) {
+        if (macroReplacer == null) {
+          macroReplacer = new CampaignMacroReplacer(details);
+        }
+        content = macroReplacer.replaceMacros(template);
+      }
+      Map<String, Object> responseTokens = option.getResponseTokens();
+      copies.add(
+          new Option()
+              .type(option.getType())
+              .content(content)
+              .eventToken(option.getEventToken())
+              .responseTokens(
+                  responseTokens == null ? new HashMap<>() : new HashMap<>(responseTokens)));
+    }
+    return copies;
+  }
+
+  /** @return new copies of the metrics, or null when the consequence has none */
+  public List<Metric> newMetrics() {
+    return copyMetrics(metrics);
+  }
+
+  /**
+   * @param options options of the view, as returned by {@link #newOptions(RequestDetails)}
+   * @return new view built from the consequence
+   */
+  public View newView(List<Option> options) {
+    View copy =
+        new View()
+            .name(view.getName())
+            .key(view.getKey())
+            .analytics(view.getAnalytics())
+            .state(view.getState());
+    if (options != null) {
+      copy.setOptions(options);
+    }
+    List<Metric> viewMetrics = copyMetrics(view.getMetrics());
+    if (viewMetrics != null) {
+      copy.setMetrics(viewMetrics);
+    }
+    return copy;
+  }
+
+  private static List<Metric> copyMetrics(List<Metric> metrics) {
+    if (metrics == null) {
+      return null;
+    }
+    List<Metric> copies = new ArrayList<>(metrics.size());
+    for (Metric metric : metrics) {
+      copies.add(
+          new Metric()
+              .type(metric.getType())
+              .selector(metric.getSelector())
+              .eventToken(metric.getEventToken())
+              .analytics(metric.getAnalytics()));
+    }
+    return copies;
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice;
+
+import com.adobe.target.edge.client.model.ondevice.OnDeviceDecisioningRule;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prefilter over the ordered rules of a single mbox or view. Rules that can only match when a
+ * variable such as {@code page.url_lc} or {@code mbox.foo} equals a given string are bucketed by
+ * that string, so a request only visits the rules whose guard it satisfies plus the unguarded ones,
+ * in their original order.
+ */
+public final class RuleIndex {
+
+  private static final int[] NO_POSITIONS = new int[0];
+
+  private final List<OnDeviceDecisioningRule> rules;
+  private final ConditionNode key;
+  private final Map<String, int[]> guarded;
+  private final int[] unguarded;
+
+  private RuleIndex(
+      List<OnDeviceDecisioningRule> rules,
+      ConditionNode key,
+      Map<String, int[]> guarded,
+      int[] unguarded) {
+    this.rules = rules;
+    this.key = key;
+    this.guarded = guarded;
+    this.unguarded = unguarded;
+  }
+
+  public static RuleIndex build(List<OnDeviceDecisioningRule> rules) {
+    if (rules == null) {
+      return null;
+    }
+    String path = mostGuardedPath(rules);
+    if (path == null) {
+      return new RuleIndex(rules, null, Collections.emptyMap(), NO_POSITIONS);
+    }
+    Map<String, List<Integer>> positionsByValue = new HashMap<>();
+    List<Integer> unguardedPositions = new ArrayList<>();
+    for (int i = 0; i < rules.size(); i++) {
+      String value = rules.get(i).getCompiledCondition().getEqualityGuards().get(path);
+      if (value == null) {
+        unguardedPositions.add(i);
+      } else {
+        positionsByValue.computeIfAbsent(value, k -> new ArrayList<>()).add(i);
+      }
+    }
+    Map<String, int[]> guarded = new HashMap<>();
+    for (Map.Entry<String, List<Integer>> entry : positionsByValue.entrySet()) {
+      guarded.put(entry.getKey(), toArray(entry.getValue()));
+    }
+    ConditionNode key = ConditionCompiler.compile(Collections.singletonMap("var", path));
+    return new RuleIndex(rules, key, guarded, toArray(unguardedPositions));
+  }
+
+  public List<OnDeviceDecisioningRule> getRules() {
+    return rules;
+  }
+
+  /**
+   * Rules that may match the given context, in their original order. Rules left out are known not
+   * to match, because one of their equality guards fails.
+   *
+   * @param context request context
+   * @return candidate rules
+   */
+  public List<OnDeviceDecisioningRule> candidates(Map<String, Object> context) {
+    if (key == null) {
+      return rules;
+    }
+    Object value = key.evaluate(context);
+    if (value != null && !(value instanceof String)) {
+      // loose equality may still hold between non-string values and string guards
+      return rules;
+    }
+    int[] matching = value == null ? NO_POSITIONS : guarded.getOrDefault(value, NO_POSITIONS);
+    List<OnDeviceDecisioningRule> result = new ArrayList<>(matching.length + unguarded.length);
+    int i = 0;
+    int j = 0;
+    while (i < matching.length || j < unguarded.length) {
+      if (j >= unguarded.length || (i < matching.length && matching[i] < unguarded[j])) {
+        result.add(rules.get(matching[i++]));
+      } else {
+        result.add(rules.get(unguarded[j++]));
+      }
+    }
+    return result;
+  }
+
+  private static String mostGuardedPath(List<OnDeviceDecisioningRule> rules) {
+    Map<String, Integer> counts = new LinkedHashMap<>();
+    for (OnDeviceDecisioningRule rule : rules) {
+      for (String path : rule.getCompiledCondition().getEqualityGuards().keySet()) {
+        counts.merge(path, 1, Integer::sum);
+      }
+    }
+    String best = null;
+    int bestCount = 0;
+    for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+      if (entry.getValue() > bestCount) {
+        best = entry.getKey();
+        bestCount = entry.getValue();
+      }
+    }
+    return best;
+  }
+
+  private static int[] toArray(List<Integer> values) {
+    int[] result = new int[values.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = values.get(i);
+    }
+    return result;
+  }
+}
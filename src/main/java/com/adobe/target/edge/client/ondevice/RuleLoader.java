@@ -33,4 +33,20 @@ public interface RuleLoader {
   Date getLastFetch();
 
   String getLocation();
+
+  /**
+   * @return consistent view of the rule set in use and the fetch state. Loaders that do not
+   *     override this report generation 0.
+   */
+  default RuleSetSnapshot getSnapshot() {
+    return RuleSetSnapshot.of(getLatestRules(), getNumFetches(), getLastFetch());
+  }
+
+  /**
+   * @return sizes, timings and outcomes of the artifact requests made so far. Loaders that do not
+   *     download artifacts report none.
+   */
+  default ArtifactFetchMetrics getFetchMetrics() {
+    return ArtifactFetchMetrics.EMPTY;
+  }
 }
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice;
+
+import com.adobe.target.edge.client.http.JacksonObjectMapper;
+import com.adobe.target.edge.client.model.ondevice.OnDeviceDecisioningRuleSet;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import kong.unirest.UnirestException;
+
+/**
+ * Reads rule set artifacts straight from their bytes or stream, so a multi-megabyte artifact is
+ * never held as a String or token tree on top of the rule set built from it. Artifacts given as
+ * bytes may also be in the {@link CompiledArtifact} format.
+ */
+final class RuleSetParser {
+
+  /** Major version of the artifact format this SDK can evaluate. */
+  static final String MAJOR_VERSION = "1";
+
+  private static final ObjectReader RULE_SET_READER =
+      new JacksonObjectMapper().getMapper().readerFor(OnDeviceDecisioningRuleSet.class);
+
+  private RuleSetParser() {}
+
+  static OnDeviceDecisioningRuleSet parse(byte[] artifact) {
+    if (CompiledArtifact.isCompiled(artifact)) {
+      return CompiledArtifact.read(ByteBuffer.wrap(artifact)).getRuleSet();
+    }
+    try {
+      return RULE_SET_READER.readValue(artifact);
+    } catch (IOException e) {
+      throw new UnirestException(e);
+    }
+  }
+
+  /** Parses and closes the stream. */
+  static OnDeviceDecisioningRuleSet parse(InputStream artifact) {
+    try (InputStream in = artifact) {
+      return RULE_SET_READER.readValue(in);
+    } catch (IOException e) {
+      throw new UnirestException(e);
+    }
+  }
+
+  static OnDeviceDecisioningRuleSet parse(TokenBuffer tokens) {
+    try (JsonParser parser = tokens.asParser()) {
+      return RULE_SET_READER.readValue(parser);
+    } catch (IOException e) {
+      throw new UnirestException(e);
+    }
+  }
+
+  /**
+   * @param ruleSet parsed rule set, or null if there was nothing to parse
+   * @param source where the rule set was read from, added to the message if it was not parsed
+   * @return why the rule set cannot be used, or null if it can
+   */
+  static String invalidRuleSetMessage(OnDeviceDecisioningRuleSet ruleSet, String source) {
+    if (ruleSet == null || ruleSet.getRules() == null) {
+      String message = "Unable to parse local-decisioning rule set";
+      return source != null ? message + " from: " + source : message;
+    }
+    if (ruleSet.getVersion() == null || !ruleSet.getVersion().startsWith(MAJOR_VERSION + ".")) {
+      return "Unknown rules version: " + ruleSet.getVersion();
+    }
+    return null;
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice;
+
+import com.adobe.target.edge.client.model.ondevice.OnDeviceDecisioningRuleSet;
+import java.util.Date;
+
+/**
+ * Immutable view of the state of a {@link RuleLoader}: the compiled rule set currently in use, the
+ * ETag it was served with and how often the artifact has been fetched. A request reads the snapshot
+ * once and works against it, so it sees one consistent artifact even if a new one is installed
+ * meanwhile.
+ */
+public final class RuleSetSnapshot {
+
+  static final RuleSetSnapshot EMPTY = new RuleSetSnapshot(null, null, 0, 0, null);
+
+  private final OnDeviceDecisioningRuleSet ruleSet;
+  private final String etag;
+  private final long generation;
+  private final int numFetches;
+  private final Long lastFetch;
+
+  private RuleSetSnapshot(
+      OnDeviceDecisioningRuleSet ruleSet,
+      String etag,
+      long generation,
+      int numFetches,
+      Long lastFetch) {
+    this.ruleSet = ruleSet;
+    this.etag = etag;
+    this.generation = generation;
+    this.numFetches = numFetches;
+    this.lastFetch = lastFetch;
+  }
+
+  /**
+   * Snapshot of a loader that does not track artifact generations.
+   *
+   * @param ruleSet rule set in use, or null
+   * @param numFetches number of successful fetches
+   * @param lastFetch time of the last successful fetch, or null
+   * @return RuleSetSnapshot with generation 0
+   */
+  public static RuleSetSnapshot of(
+      OnDeviceDecisioningRuleSet ruleSet, int numFetches, Date lastFetch) {
+    return new RuleSetSnapshot(
+        ruleSet, null, 0, numFetches, lastFetch == null ? null : lastFetch.getTime());
+  }
+
+  /** @return new snapshot holding the given compiled rule set, with the next generation number */
+  RuleSetSnapshot withRuleSet(OnDeviceDecisioningRuleSet ruleSet, String etag) {
+    return new RuleSetSnapshot(ruleSet, etag, generation + 1, numFetches, lastFetch);
+  }
+
+  /** @return new snapshot counting one more successful fetch */
+  RuleSetSnapshot withFetch(long fetchedAt) {
+    return new RuleSetSnapshot(ruleSet, etag, generation, numFetches + 1, fetchedAt);
+  }
+
+  /** @return compiled rule set, or null when none has been loaded yet */
+  public OnDeviceDecisioningRuleSet getRuleSet() {
+    return ruleSet;
+  }
+
+  /** @return ETag the rule set was served with, or null */
+  public String getETag() {
+    return etag;
+  }
+
+  /**
+   * @return number of rule sets installed by the loader so far, so 1 for the first one, or 0 when
+   *     the loader does not track generations
+   */
+  public long getGeneration() {
+    return generation;
+  }
+
+  public int getNumFetches() {
+    return numFetches;
+  }
+
+  /** @return time of the last successful fetch, or null */
+  public Date getLastFetch() {
+    return lastFetch == null ? null : new Date(lastFetch);
+  }
+}
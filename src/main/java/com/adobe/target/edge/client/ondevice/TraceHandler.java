@@ -52,11 +52,29 @@ public final class TraceHandler {
       ObjectMapper mapper,
       OnDeviceDecisioningRuleSet ruleSet,
       TargetDeliveryRequest request) {
+    this(
+        clientConfig,
+        ruleLoader,
+        mapper,
+        RuleSetSnapshot.of(ruleSet, ruleLoader.getNumFetches(), ruleLoader.getLastFetch()),
+        request);
+  }
+
+  /**
+   * @param snapshot snapshot the request is evaluated against, whose generation and fetch state are
+   *     reported in the artifact trace
+   */
+  public TraceHandler(
+      ClientConfig clientConfig,
+      RuleLoader ruleLoader,
+      ObjectMapper mapper,
+      RuleSetSnapshot snapshot,
+      TargetDeliveryRequest request) {
     this.mapper = mapper;
-    this.ruleSet = ruleSet;
+    this.ruleSet = snapshot.getRuleSet();
     this.trace = new HashMap<>();
     this.trace.put("clientCode", clientConfig.getClient());
-    this.trace.put("artifact", this.artifactTrace(ruleLoader, ruleSet));
+    this.trace.put("artifact", this.artifactTrace(ruleLoader, snapshot));
     this.trace.put("profile", this.profileTrace(request.getDeliveryRequest().getId()));
     this.campaigns = new HashMap<>();
     this.evaluatedTargets = new HashMap<>();
@@ -122,17 +140,21 @@ public final class TraceHandler {
     return currentTrace;
   }
 
-  private Map<String, Object> artifactTrace(
-      RuleLoader ruleLoader, OnDeviceDecisioningRuleSet ruleSet) {
+  private Map<String, Object> artifactTrace(RuleLoader ruleLoader, RuleSetSnapshot snapshot) {
+    OnDeviceDecisioningRuleSet ruleSet = snapshot.getRuleSet();
     Map<String, Object> artifacts = new HashMap<>(ruleSet.getMeta());
     artifacts.put("artifactVersion", ruleSet.getVersion());
+    artifacts.put("artifactGeneration", snapshot.getGeneration());
     artifacts.put("pollingInterval", ruleLoader.getPollingInterval());
-    artifacts.put("artifactRetrievalCount", ruleLoader.getNumFetches());
+    artifacts.put("artifactRetrievalCount", snapshot.getNumFetches());
     artifacts.put("artifactLocation", ruleLoader.getLocation());
     artifacts.put("pollingHalted", false);
-    DateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm'Z'");
-    format.setTimeZone(this.utc);
-    artifacts.put("artifactLastRetrieved", format.format(ruleLoader.getLastFetch()));
+    Date lastFetch = snapshot.getLastFetch();
+    if (lastFetch != null) {
+      DateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm'Z'");
+      format.setTimeZone(this.utc);
+      artifacts.put("artifactLastRetrieved", format.format(lastFetch));
+    }
     return artifacts;
   }
 
@@ -159,7 +181,7 @@ public final class TraceHandler {
         }
         List<CustomerId> customerIds = visitorId.getCustomerIds();
         if (customerIds != null) {
-          visitorIdMap.put("customerIds", mapper.convertValue(customerIds, Map.class));
+          visitorIdMap.put("customerIds", mapper.convertValue(customerIds, List.class));
         }
         profile.put("visitorId", visitorIdMap);
       }
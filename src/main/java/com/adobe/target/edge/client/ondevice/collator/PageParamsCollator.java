@@ -16,7 +16,6 @@ import com.adobe.target.edge.client.model.TargetDeliveryRequest;
 import com.adobe.target.edge.client.utils.StringUtils;
 import com.google.common.net.InternetDomainName;
 import java.net.MalformedURLException;
-import java.net.URL;
 import java.util.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,6 +39,12 @@ public class PageParamsCollator implements ParamsCollator {
   protected static final String PAGE_FRAGMENT = "fragment";
   protected static final String PAGE_FRAGMENT_LOWER = "fragment_lc";
 
+  static final int HOST_CACHE_SIZE = 1000;
+
+  /** Domain, subdomain and top level domain of a host, shared by page and referring collators. */
+  private static final ParamsCache<String, HostParams> HOST_CACHE =
+      new ParamsCache<>(HOST_CACHE_SIZE);
+
   private boolean referring = false;
 
   public PageParamsCollator() {}
@@ -65,34 +70,38 @@ public class PageParamsCollator implements ParamsCollator {
       if (StringUtils.isEmpty(urlToUse)) {
         return page;
       }
-      URL url = new URL(urlToUse);
-      page.put(PAGE_URL, url.toString());
-      page.put(PAGE_URL_LOWER, url.toString().toLowerCase());
+      PageUrl url = PageUrl.parse(urlToUse);
+      PageUrl lowerUrl = url.toLowerCase();
+      page.put(PAGE_URL, url.getUrl());
+      page.put(PAGE_URL_LOWER, lowerUrl.getUrl());
       String host = url.getHost();
-      page.put(PAGE_DOMAIN, strOrBlank(host));
-      page.put(PAGE_DOMAIN_LOWER, strLowerOrBlank(host));
-      String subdomain = extractSubDomain(host);
-      page.put(PAGE_SUBDOMAIN, strOrBlank(subdomain));
-      page.put(PAGE_SUBDOMAIN_LOWER, strLowerOrBlank(subdomain));
-      String topLevelDomain = extractTopLevel(host);
-      page.put(PAGE_TOP_LEVEL_DOMAIN, strOrBlank(topLevelDomain));
-      page.put(PAGE_TOP_LEVEL_DOMAIN_LOWER, strLowerOrBlank(topLevelDomain));
-      String path = url.getPath();
-      page.put(PAGE_PATH, strOrBlank(path));
-      page.put(PAGE_PATH_LOWER, strLowerOrBlank(path));
-      String query = url.getQuery();
-      page.put(PAGE_QUERY, strOrBlank(query));
-      page.put(PAGE_QUERY_LOWER, strLowerOrBlank(query));
-      String fragment = url.getRef();
-      page.put(PAGE_FRAGMENT, strOrBlank(fragment));
-      page.put(PAGE_FRAGMENT_LOWER, strLowerOrBlank(fragment));
+      HostParams hostParams =
+          host != null ? HOST_CACHE.get(host, PageParamsCollator::hostParams) : HostParams.EMPTY;
+      page.put(PAGE_DOMAIN, hostParams.domain);
+      page.put(PAGE_DOMAIN_LOWER, hostParams.domainLower);
+      page.put(PAGE_SUBDOMAIN, hostParams.subdomain);
+      page.put(PAGE_SUBDOMAIN_LOWER, hostParams.subdomainLower);
+      page.put(PAGE_TOP_LEVEL_DOMAIN, hostParams.topLevelDomain);
+      page.put(PAGE_TOP_LEVEL_DOMAIN_LOWER, hostParams.topLevelDomainLower);
+      page.put(PAGE_PATH, strOrBlank(url.getPath()));
+      page.put(PAGE_PATH_LOWER, strOrBlank(lowerUrl.getPath()));
+      page.put(PAGE_QUERY, strOrBlank(url.getQuery()));
+      page.put(PAGE_QUERY_LOWER, strOrBlank(lowerUrl.getQuery()));
+      page.put(PAGE_FRAGMENT, strOrBlank(url.getFragment()));
+      page.put(PAGE_FRAGMENT_LOWER, strOrBlank(lowerUrl.getFragment()));
     } catch (MalformedURLException ex) {
       logger.warn("URL in context address malformed, skipping", ex);
     }
     return page;
   }
 
-  private String extractTopLevel(String host) {
+  private static HostParams hostParams(String host) {
+    String subdomain = extractSubDomain(host);
+    String topLevelDomain = extractTopLevel(host);
+    return new HostParams(host, subdomain, topLevelDomain);
+  }
+
+  private static String extractTopLevel(String host) {
     if (host == null) {
       return "";
     }
@@ -108,7 +117,7 @@ public class PageParamsCollator implements ParamsCollator {
     return lowerCaseResult.toUpperCase();
   }
 
-  private String extractSubDomain(String host) {
+  private static String extractSubDomain(String host) {
     if (host == null) {
       return "";
     }
@@ -129,11 +138,28 @@ public class PageParamsCollator implements ParamsCollator {
     return host.substring(0, endIndex - 1);
   }
 
-  private String strOrBlank(String str) {
+  private static String strOrBlank(String str) {
     return str != null ? str : "";
   }
 
-  private String strLowerOrBlank(String str) {
-    return str != null ? str.toLowerCase() : "";
+  private static final class HostParams {
+
+    static final HostParams EMPTY = new HostParams("", "", "");
+
+    final String domain;
+    final String domainLower;
+    final String subdomain;
+    final String subdomainLower;
+    final String topLevelDomain;
+    final String topLevelDomainLower;
+
+    HostParams(String domain, String subdomain, String topLevelDomain) {
+      this.domain = domain;
+      this.domainLower = domain.toLowerCase();
+      this.subdomain = subdomain;
+      this.subdomainLower = subdomain.toLowerCase();
+      this.topLevelDomain = topLevelDomain;
+      this.topLevelDomainLower = topLevelDomain.toLowerCase();
+    }
   }
 }
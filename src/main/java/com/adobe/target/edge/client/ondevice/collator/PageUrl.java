@@ -0,0 +1,165 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice.collator;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+
+/**
+ * Components of a page URL as reported by {@link URL}. Plain http and https URLs are split in a
+ * single pass without allocating a {@link URL}; anything else is delegated to {@link URL} so the
+ * reported components stay identical.
+ */
+final class PageUrl {
+
+  private static final String HTTP = "http://";
+  private static final String HTTPS = "https://";
+
+  private final String url;
+  private final String host;
+  private final String path;
+  private final String query;
+  private final String fragment;
+
+  private PageUrl(String url, String host, String path, String query, String fragment) {
+    this.url = url;
+    this.host = host;
+    this.path = path;
+    this.query = query;
+    this.fragment = fragment;
+  }
+
+  static PageUrl parse(String spec) throws MalformedURLException {
+    PageUrl pageUrl = split(spec);
+    if (pageUrl != null) {
+      return pageUrl;
+    }
+    URL url = new URL(spec);
+    return new PageUrl(url.toString(), url.getHost(), url.getPath(), url.getQuery(), url.getRef());
+  }
+
+  /**
+   * Splits http and https URLs that {@link URL} would report verbatim, returns null for anything
+   * needing its normalization or validation (scheme case, surrounding whitespace, whitespace or
+   * control characters in the authority, user info, IPv6 hosts, invalid ports, dot segments or an
+   * empty authority).
+   */
+  private static PageUrl split(String spec) {
+    int start;
+    if (spec.startsWith(HTTPS)) {
+      start = HTTPS.length();
+    } else if (spec.startsWith(HTTP)) {
+      start = HTTP.length();
+    } else {
+      return null;
+    }
+    int length = spec.length();
+    if (spec.charAt(length - 1) <= ' ') {
+      return null;
+    }
+    int fragmentStart = -1;
+    int queryStart = -1;
+    int pathStart = -1;
+    int portStart = -1;
+    for (int i = start; i < length; i++) {
+      char c = spec.charAt(i);
+      if (c == '#') {
+        fragmentStart = i;
+        break;
+      }
+      if (queryStart >= 0) {
+        continue;
+      }
+      if (c == '?') {
+        queryStart = i;
+      } else if (pathStart >= 0) {
+        if (c == '.' && spec.charAt(i - 1) == '/') {
+          return null;
+        }
+      } else if (c == '/') {
+        pathStart = i;
+      } else if (c == ':' && portStart < 0) {
+        portStart = i;
+      } else if (c == '@' || c == '[' || c <= ' ' || c == '\u007f') {
+        return null;
+      } else if (portStart >= 0 && (c < '0' || c > '9')) {
+        return null;
+      }
+    }
+    int pathEnd = queryStart >= 0 ? queryStart : fragmentStart >= 0 ? fragmentStart : length;
+    int authorityEnd = pathStart >= 0 ? pathStart : pathEnd;
+    if (authorityEnd == start) {
+      return null;
+    }
+    String host = spec.substring(start, portStart >= 0 ? portStart : authorityEnd);
+    String path = pathStart >= 0 ? spec.substring(pathStart, pathEnd) : "";
+    String query =
+        queryStart >= 0
+            ? spec.substring(queryStart + 1, fragmentStart >= 0 ? fragmentStart : length)
+            : null;
+    String fragment = fragmentStart >= 0 ? spec.substring(fragmentStart + 1) : null;
+    return new PageUrl(spec, host, path, query, fragment);
+  }
+
+  /**
+   * Lower-cases the URL once and slices the components out of it, lower-casing them one by one only
+   * when case mapping changes the length of the URL.
+   */
+  PageUrl toLowerCase() {
+    String lowerUrl = url.toLowerCase();
+    if (lowerUrl.length() != url.length()) {
+      return new PageUrl(
+          lowerUrl,
+          lowerOrNull(host),
+          lowerOrNull(path),
+          lowerOrNull(query),
+          lowerOrNull(fragment));
+    }
+    int end = lowerUrl.length();
+    String lowerFragment = null;
+    if (fragment != null) {
+      lowerFragment = lowerUrl.substring(end - fragment.length());
+      end -= fragment.length() + 1;
+    }
+    String lowerQuery = null;
+    if (query != null) {
+      lowerQuery = lowerUrl.substring(end - query.length(), end);
+      end -= query.length() + 1;
+    }
+    String lowerPath = path != null ? lowerUrl.substring(end - path.length(), end) : null;
+    return new PageUrl(lowerUrl, lowerOrNull(host), lowerPath, lowerQuery, lowerFragment);
+  }
+
+  private static String lowerOrNull(String str) {
+    return str != null ? str.toLowerCase() : null;
+  }
+
+  String getUrl() {
+    return url;
+  }
+
+  String getHost() {
+    return host;
+  }
+
+  String getPath() {
+    return path;
+  }
+
+  String getQuery() {
+    return query;
+  }
+
+  String getFragment() {
+    return fragment;
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice.collator;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded, thread-safe cache of collated values, evicting the least recently used entries. A
+ * maximum size of 0 disables caching.
+ */
+public final class ParamsCache<K, V> {
+
+  private final Cache<K, V> cache;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  public ParamsCache(int maximumSize) {
+    this.cache =
+        maximumSize > 0 ? CacheBuilder.newBuilder().maximumSize(maximumSize).<K, V>build() : null;
+  }
+
+  /**
+   * Returns the cached value for the key, computing and caching it on a miss. Concurrent misses on
+   * the same key may compute the value more than once.
+   *
+   * @param key cache key
+   * @param loader computes the value of a missing key, must not return null
+   * @return cached or computed value
+   */
+  public V get(K key, Function<K, V> loader) {
+    if (cache == null) {
+      misses.increment();
+      return loader.apply(key);
+    }
+    V value = cache.getIfPresent(key);
+    if (value != null) {
+      hits.increment();
+      return value;
+    }
+    misses.increment();
+    value = loader.apply(key);
+    cache.put(key, value);
+    return value;
+  }
+
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  public long size() {
+    return cache == null ? 0 : cache.size();
+  }
+}
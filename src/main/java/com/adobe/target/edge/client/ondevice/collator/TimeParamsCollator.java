@@ -13,7 +13,7 @@ package com.adobe.target.edge.client.ondevice.collator;
 
 import com.adobe.target.delivery.v1.model.RequestDetails;
 import com.adobe.target.edge.client.model.TargetDeliveryRequest;
-import java.text.SimpleDateFormat;
+import java.time.Clock;
 import java.util.*;
 
 public class TimeParamsCollator implements ParamsCollator {
@@ -22,22 +22,63 @@ public class TimeParamsCollator implements ParamsCollator {
   protected static final String CURRENT_DAY = "current_day";
   protected static final String CURRENT_TIME = "current_time";
 
+  private static final long MILLIS_PER_MINUTE = 60_000L;
+  private static final long MINUTES_PER_DAY = 24 * 60;
+  private static final int EPOCH_DAY_OF_WEEK = 4; // 1970-01-01 was a Thursday
+
+  private final Clock clock;
+  private volatile MinuteParams minuteParams;
+
+  public TimeParamsCollator() {
+    this(Clock.systemUTC());
+  }
+
+  /** @param clock source of the current time, a fixed clock makes timeframe rules deterministic */
+  public TimeParamsCollator(Clock clock) {
+    this.clock = clock;
+  }
+
   public Map<String, Object> collateParams(
       TargetDeliveryRequest deliveryRequest, RequestDetails requestDetails) {
     Map<String, Object> time = new HashMap<>();
     long now = currentTimestamp();
-    Date nowDate = new Date(now);
+    long minute = Math.floorDiv(now, MILLIS_PER_MINUTE);
+    MinuteParams params = minuteParams;
+    if (params == null || params.minute != minute) {
+      params = new MinuteParams(minute);
+      minuteParams = params;
+    }
     time.put(CURRENT_TIMESTAMP, now);
-    SimpleDateFormat dayFormat = new SimpleDateFormat("u");
-    dayFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
-    time.put(CURRENT_DAY, dayFormat.format(nowDate));
-    SimpleDateFormat timeFormat = new SimpleDateFormat("HHmm");
-    timeFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
-    time.put(CURRENT_TIME, timeFormat.format(nowDate));
+    time.put(CURRENT_DAY, params.day);
+    time.put(CURRENT_TIME, params.time);
     return time;
   }
 
   protected long currentTimestamp() {
-    return System.currentTimeMillis();
+    return clock.millis();
+  }
+
+  /** UTC ISO day of week (1 is Monday) and HHmm time of a minute since the epoch. */
+  private static final class MinuteParams {
+
+    final long minute;
+    final String day;
+    final String time;
+
+    MinuteParams(long minute) {
+      this.minute = minute;
+      long epochDay = Math.floorDiv(minute, MINUTES_PER_DAY);
+      int minuteOfDay = (int) Math.floorMod(minute, MINUTES_PER_DAY);
+      this.day = String.valueOf(Math.floorMod(epochDay + EPOCH_DAY_OF_WEEK - 1, 7) + 1);
+      int hours = minuteOfDay / 60;
+      int minutes = minuteOfDay % 60;
+      this.time =
+          new StringBuilder(4)
+              .append((char) ('0' + hours / 10))
+              .append((char) ('0' + hours % 10))
+              .append((char) ('0' + minutes / 10))
+              .append((char) ('0' + minutes % 10))
+              .toString();
+    }
   }
 }
@@ -96,17 +96,59 @@ public class UserParamsCollator implements ParamsCollator {
   private static final int COMPATIBILITY_TOKEN_START_LENGTH = COMPATIBILITY_TOKEN_START.length();
   private static final int COMPATIBILITY_TOKEN_END_LENGTH = COMPATIBILITY_TOKEN_END.length();
 
+  public static final int DEFAULT_CACHE_SIZE = 1000;
+
+  private final ParamsCache<List<String>, Map<String, Object>> cache;
+
+  public UserParamsCollator() {
+    this(DEFAULT_CACHE_SIZE);
+  }
+
+  /**
+   * @param cacheSize maximum number of distinct user agent and client hints combinations whose
+   *     parsed params are cached, 0 to parse every request
+   */
+  public UserParamsCollator(int cacheSize) {
+    this.cache = new ParamsCache<>(cacheSize);
+  }
+
+  /**
+   * Returns the browser type, browser version and platform of the request. The returned map is
+   * unmodifiable and shared by every request with the same user agent and client hints.
+   */
   public Map<String, Object> collateParams(
       TargetDeliveryRequest deliveryRequest, RequestDetails requestDetails) {
-    Map<String, Object> user = new HashMap<>();
     String userAgent = extractUserAgent(deliveryRequest);
     ClientHints clientHints = extractClientHints(deliveryRequest);
+    List<String> key =
+        clientHints == null
+            ? Arrays.asList(userAgent, null, null, null)
+            : Arrays.asList(
+                userAgent,
+                clientHints.getPlatform(),
+                clientHints.getBrowserUAWithFullVersion(),
+                clientHints.getBrowserUAWithMajorVersion());
+    return cache.get(key, unused -> parseParams(userAgent, clientHints));
+  }
+
+  /** @return number of requests whose params were found in the cache */
+  public long getCacheHitCount() {
+    return cache.getHitCount();
+  }
+
+  /** @return number of requests whose params were parsed */
+  public long getCacheMissCount() {
+    return cache.getMissCount();
+  }
+
+  private Map<String, Object> parseParams(String userAgent, ClientHints clientHints) {
+    Map<String, Object> user = new HashMap<>();
     String browserInfo = getBrowserInfo(userAgent, clientHints);
     String browserType = parseBrowserType(browserInfo);
     user.put(USER_BROWSER_TYPE, browserType);
     user.put(USER_PLATFORM, parsePlatform(userAgent, clientHints));
     user.put(USER_BROWSER_VERSION, parseBrowserVersion(browserInfo, browserType));
-    return user;
+    return Collections.unmodifiableMap(user);
   }
 
   private String parseBrowserType(String browserInfo) {
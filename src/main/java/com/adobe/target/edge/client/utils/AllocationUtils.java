@@ -20,14 +20,30 @@ public class AllocationUtils {
     return clientId + "." + activityId + "." + visitorId + "." + salt;
   }
 
+  /**
+   * Same as {@code calculateAllocation(getDeviceId(clientId, activityId, visitorId, salt))}, but
+   * hashes the device id segments in sequence instead of concatenating them first.
+   */
   public static double calculateAllocation(
       String clientId, String activityId, String visitorId, String salt) {
-    return calculateAllocation(getDeviceId(clientId, activityId, visitorId, salt));
+    int hashValue =
+        new HashingUtils.UnencodedCharsHasher()
+            .putChars(String.valueOf(clientId))
+            .putChar('.')
+            .putChars(String.valueOf(activityId))
+            .putChar('.')
+            .putChars(String.valueOf(visitorId))
+            .putChar('.')
+            .putChars(String.valueOf(salt))
+            .hash();
+    return allocationFromHash(hashValue);
   }
 
   public static double calculateAllocation(String deviceId) {
-    int hashValue = HashingUtils.hashUnencodedChars(deviceId);
+    return allocationFromHash(HashingUtils.hashUnencodedChars(deviceId));
+  }
 
+  private static double allocationFromHash(int hashValue) {
     int hashFixedBucket = Math.abs(hashValue) % TOTAL_BUCKETS;
     float allocationValue = ((float) hashFixedBucket / TOTAL_BUCKETS) * MAX_PERCENTAGE;
 
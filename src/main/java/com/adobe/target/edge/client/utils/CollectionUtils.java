@@ -11,7 +11,11 @@
  */
 package com.adobe.target.edge.client.utils;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 public class CollectionUtils {
@@ -27,4 +31,46 @@ public class CollectionUtils {
   public static boolean isEmpty(Map<?, ?> map) {
     return map == null || map.isEmpty();
   }
+
+  /**
+   * Copies a structure of maps and lists, such as a deserialized JSON value, into unmodifiable maps
+   * and lists. Other values are shared with the original.
+   *
+   * @param value value to copy
+   * @return unmodifiable copy of the value
+   */
+  public static Object immutableCopy(Object value) {
+    if (value instanceof Map) {
+      Map<Object, Object> copy = new LinkedHashMap<>();
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        copy.put(entry.getKey(), immutableCopy(entry.getValue()));
+      }
+      return Collections.unmodifiableMap(copy);
+    }
+    if (value instanceof List) {
+      List<Object> copy = new ArrayList<>(((List<?>) value).size());
+      for (Object element : (List<?>) value) {
+        copy.add(immutableCopy(element));
+      }
+      return Collections.unmodifiableList(copy);
+    }
+    return value;
+  }
+
+  /**
+   * @param map map to copy, such as a deserialized JSON object
+   * @return deeply unmodifiable copy of the map, or null
+   */
+  @SuppressWarnings("unchecked")
+  public static Map<String, Object> immutableMapCopy(Map<String, Object> map) {
+    return (Map<String, Object>) immutableCopy(map);
+  }
+
+  /**
+   * @param list list to copy
+   * @return unmodifiable copy of the list, or null
+   */
+  public static <T> List<T> immutableListCopy(List<T> list) {
+    return list == null ? null : Collections.unmodifiableList(new ArrayList<>(list));
+  }
 }
@@ -74,4 +74,62 @@ public class HashingUtils {
 
     return fmix(h1, CHARS_BYTES * input.length());
   }
+
+  /**
+   * Streaming form of {@link #hashUnencodedChars(CharSequence, int)}. Hashing a sequence of
+   * segments gives the same result as hashing their concatenation, without building it.
+   */
+  public static final class UnencodedCharsHasher {
+    private int h1;
+    private int pending;
+    private boolean hasPending;
+    private int length;
+
+    public UnencodedCharsHasher() {
+      this(DEFAULT_SEED_VALUE);
+    }
+
+    public UnencodedCharsHasher(int seed) {
+      this.h1 = seed;
+    }
+
+    public UnencodedCharsHasher putChar(char c) {
+      if (hasPending) {
+        h1 = mixH1(h1, mixK1(pending | (c << 16)));
+        hasPending = false;
+      } else {
+        pending = c;
+        hasPending = true;
+      }
+      length++;
+      return this;
+    }
+
+    public UnencodedCharsHasher putChars(CharSequence input) {
+      int inputLength = input.length();
+      int i = 0;
+      if (hasPending && inputLength > 0) {
+        h1 = mixH1(h1, mixK1(pending | (input.charAt(0) << 16)));
+        hasPending = false;
+        i = 1;
+      }
+      for (; i + 1 < inputLength; i += 2) {
+        h1 = mixH1(h1, mixK1(input.charAt(i) | (input.charAt(i + 1) << 16)));
+      }
+      if (i < inputLength) {
+        pending = input.charAt(i);
+        hasPending = true;
+      }
+      length += inputLength;
+      return this;
+    }
+
+    public int hash() {
+      int h = h1;
+      if (hasPending) {
+        h ^= mixK1(pending);
+      }
+      return fmix(h, CHARS_BYTES * length);
+    }
+  }
 }
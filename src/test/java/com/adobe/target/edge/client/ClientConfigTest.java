@@ -71,4 +71,18 @@ public class ClientConfigTest {
     assertEquals(PROXY_PASSWORD, proxyConfig.getPassword());
     assertTrue(proxyConfig.isAuthProxy());
   }
+
+  @Test
+  void testOnDeviceUserAgentCacheSize() {
+    assertEquals(
+        1000,
+        ClientConfig.builder().organizationId(TEST_ORG_ID).build().getOnDeviceUserAgentCacheSize());
+    assertEquals(
+        0,
+        ClientConfig.builder()
+            .organizationId(TEST_ORG_ID)
+            .onDeviceUserAgentCacheSize(0)
+            .build()
+            .getOnDeviceUserAgentCacheSize());
+  }
 }
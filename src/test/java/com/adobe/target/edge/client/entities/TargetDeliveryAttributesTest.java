@@ -22,7 +22,6 @@ import com.adobe.target.edge.client.Attributes;
 import com.adobe.target.edge.client.ClientConfig;
 import com.adobe.target.edge.client.TargetClient;
 import com.adobe.target.edge.client.http.DefaultTargetHttpClient;
-import com.adobe.target.edge.client.http.JacksonObjectMapper;
 import com.adobe.target.edge.client.model.DecisioningMethod;
 import com.adobe.target.edge.client.model.TargetDeliveryRequest;
 import com.adobe.target.edge.client.ondevice.ClusterLocator;
@@ -36,7 +35,6 @@ import com.adobe.target.edge.client.service.NotificationService;
 import com.adobe.target.edge.client.service.TelemetryService;
 import com.adobe.target.edge.client.service.VisitorProvider;
 import com.adobe.target.edge.client.utils.TargetTestDeliveryRequestUtils;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -112,9 +110,8 @@ class TargetDeliveryAttributesTest {
         localService.getClass().getDeclaredField("clusterLocator"),
         mock(ClusterLocator.class));
 
-    ObjectMapper mapper = new JacksonObjectMapper().getMapper();
     OnDeviceDecisioningDetailsExecutor decisionHandler =
-        new OnDeviceDecisioningDetailsExecutor(clientConfig, mapper);
+        new OnDeviceDecisioningDetailsExecutor(clientConfig);
     FieldSetter.setField(
         localService, localService.getClass().getDeclaredField("decisionHandler"), decisionHandler);
     ParamsCollator specificTimeCollator =
@@ -28,7 +28,6 @@ import com.adobe.target.delivery.v1.model.*;
 import com.adobe.target.edge.client.ClientConfig;
 import com.adobe.target.edge.client.TargetClient;
 import com.adobe.target.edge.client.http.DefaultTargetHttpClient;
-import com.adobe.target.edge.client.http.JacksonObjectMapper;
 import com.adobe.target.edge.client.model.DecisioningMethod;
 import com.adobe.target.edge.client.model.TargetDeliveryRequest;
 import com.adobe.target.edge.client.model.TargetDeliveryResponse;
@@ -39,7 +38,6 @@ import com.adobe.target.edge.client.ondevice.client.geo.GeoClient;
 import com.adobe.target.edge.client.service.DefaultTargetService;
 import com.adobe.target.edge.client.service.NotificationService;
 import com.adobe.target.edge.client.service.TelemetryService;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
@@ -77,9 +75,8 @@ public class TargetDeliveryLocalGeoTest {
     TelemetryService telemetryService = new TelemetryService(clientConfig);
     DefaultTargetService targetService = new DefaultTargetService(clientConfig, telemetryService);
     localService = new OnDeviceDecisioningService(clientConfig, targetService, telemetryService);
-    ObjectMapper mapper = new JacksonObjectMapper().getMapper();
     OnDeviceDecisioningDetailsExecutor decisionHandler =
-        new OnDeviceDecisioningDetailsExecutor(clientConfig, mapper);
+        new OnDeviceDecisioningDetailsExecutor(clientConfig);
 
     targetJavaClient = TargetClient.create(clientConfig);
 
@@ -22,7 +22,6 @@ import com.adobe.target.delivery.v1.model.*;
 import com.adobe.target.edge.client.ClientConfig;
 import com.adobe.target.edge.client.TargetClient;
 import com.adobe.target.edge.client.http.DefaultTargetHttpClient;
-import com.adobe.target.edge.client.http.JacksonObjectMapper;
 import com.adobe.target.edge.client.model.DecisioningMethod;
 import com.adobe.target.edge.client.model.TargetDeliveryRequest;
 import com.adobe.target.edge.client.model.TargetDeliveryResponse;
@@ -34,7 +33,6 @@ import com.adobe.target.edge.client.service.DefaultTargetService;
 import com.adobe.target.edge.client.service.NotificationService;
 import com.adobe.target.edge.client.service.TelemetryService;
 import com.adobe.target.edge.client.utils.TargetTestDeliveryRequestUtils;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.util.*;
 import org.junit.jupiter.api.BeforeEach;
@@ -70,9 +68,8 @@ class TargetDeliveryRequestLocalMboxTest {
     TelemetryService telemetryService = new TelemetryService(clientConfig);
     DefaultTargetService targetService = new DefaultTargetService(clientConfig, telemetryService);
     localService = new OnDeviceDecisioningService(clientConfig, targetService, telemetryService);
-    ObjectMapper mapper = new JacksonObjectMapper().getMapper();
     OnDeviceDecisioningDetailsExecutor decisionHandler =
-        new OnDeviceDecisioningDetailsExecutor(clientConfig, mapper);
+        new OnDeviceDecisioningDetailsExecutor(clientConfig);
 
     targetJavaClient = TargetClient.create(clientConfig);
 
@@ -240,6 +237,24 @@ class TargetDeliveryRequestLocalMboxTest {
         "B8C2FP2IuBgmeJcDfXHjGpZBXFCzaoRRABbzIA9EnZOCnQ9Y9OaLL2gsdrWQTvE54PwSz67rmXWmSnkXpSSS2Q==");
   }
 
+  @Test
+  void testTargetDeliveryLocalRequestUserAgentCache() throws IOException, NoSuchFieldException {
+    fileRuleLoader("DECISIONING_PAYLOAD_BROWSER.json", localService);
+    for (int i = 0; i < 2; i++) {
+      TargetDeliveryRequest targetDeliveryRequest =
+          localDeliveryRequest(
+              "38734fba-262c-4722-b4a3-ac0a93916873", DecisioningMethod.HYBRID, "browser-mbox");
+      targetDeliveryRequest
+          .getDeliveryRequest()
+          .getContext()
+          .setUserAgent(
+              "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_3) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/80.0.3987.87 Safari/537.36");
+      targetJavaClient.getOffers(targetDeliveryRequest);
+    }
+    assertEquals(1, localService.getUserAgentCacheMissCount());
+    assertEquals(1, localService.getUserAgentCacheHitCount());
+  }
+
   @Test
   void testTargetDeliveryLocalRequestWrongBrowserFirefox()
       throws IOException, NoSuchFieldException {
@@ -28,7 +28,6 @@ import com.adobe.target.delivery.v1.model.*;
 import com.adobe.target.edge.client.ClientConfig;
 import com.adobe.target.edge.client.TargetClient;
 import com.adobe.target.edge.client.http.DefaultTargetHttpClient;
-import com.adobe.target.edge.client.http.JacksonObjectMapper;
 import com.adobe.target.edge.client.model.DecisioningMethod;
 import com.adobe.target.edge.client.model.TargetDeliveryRequest;
 import com.adobe.target.edge.client.model.TargetDeliveryRequestBuilder;
@@ -41,7 +40,6 @@ import com.adobe.target.edge.client.service.DefaultTargetService;
 import com.adobe.target.edge.client.service.NotificationService;
 import com.adobe.target.edge.client.service.TelemetryService;
 import com.adobe.target.edge.client.utils.TargetTestDeliveryRequestUtils;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.util.*;
 import org.junit.jupiter.api.BeforeEach;
@@ -114,9 +112,8 @@ class TargetDeliveryRequestLocalViewTest {
     TelemetryService telemetryService = new TelemetryService(clientConfig);
     DefaultTargetService targetService = new DefaultTargetService(clientConfig, telemetryService);
     localService = new OnDeviceDecisioningService(clientConfig, targetService, telemetryService);
-    ObjectMapper mapper = new JacksonObjectMapper().getMapper();
     OnDeviceDecisioningDetailsExecutor decisionHandler =
-        new OnDeviceDecisioningDetailsExecutor(clientConfig, mapper);
+        new OnDeviceDecisioningDetailsExecutor(clientConfig);
 
     targetJavaClient = TargetClient.create(clientConfig);
 
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.adobe.target.edge.client.utils.ArtifactGenerator;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ArtifactCacheTest {
+
+  private static final String LOCATION =
+      "https://assets.adobetarget.com/client123/production/v1/rules.json";
+
+  @Test
+  void testReadMissingArtifact(@TempDir Path directory) {
+    assertNull(new ArtifactCache(directory, LOCATION).read());
+  }
+
+  @Test
+  void testWriteAndRead(@TempDir Path directory) throws IOException {
+    byte[] artifact = new ArtifactGenerator().mboxes(3).toBytes();
+    new ArtifactCache(directory.resolve("nested"), LOCATION).write("\"etag-1\"", artifact);
+
+    CompiledArtifact cached = new ArtifactCache(directory.resolve("nested"), LOCATION).read();
+    assertNotNull(cached);
+    assertEquals("\"etag-1\"", cached.getETag());
+    assertEquals(
+        RuleSetParser.parse(artifact).getLocalMboxes(), cached.getRuleSet().getLocalMboxes());
+  }
+
+  @Test
+  void testWriteWithoutETag(@TempDir Path directory) throws IOException {
+    ArtifactCache cache = new ArtifactCache(directory, LOCATION);
+    cache.write(null, new ArtifactGenerator().toBytes());
+
+    CompiledArtifact cached = cache.read();
+    assertNotNull(cached);
+    assertNull(cached.getETag());
+  }
+
+  @Test
+  void testOverwrite(@TempDir Path directory) throws IOException {
+    ArtifactCache cache = new ArtifactCache(directory, LOCATION);
+    cache.write("a", new ArtifactGenerator().mboxes(1).toBytes());
+    cache.write("b", new ArtifactGenerator().mboxes(2).toBytes());
+
+    CompiledArtifact cached = cache.read();
+    assertEquals("b", cached.getETag());
+    assertEquals(2, cached.getRuleSet().getLocalMboxes().size());
+    try (Stream<Path> files = Files.list(directory)) {
+      assertEquals(1, files.count());
+    }
+  }
+
+  @Test
+  void testCorruptFile(@TempDir Path directory) throws IOException {
+    ArtifactCache cache = new ArtifactCache(directory, LOCATION);
+    Files.write(cache.getFile(), new ArtifactGenerator().toBytes());
+    assertNull(cache.read());
+  }
+
+  @Test
+  void testInvalidArtifactIsNotCached(@TempDir Path directory) throws IOException {
+    ArtifactCache cache = new ArtifactCache(directory, LOCATION);
+    cache.write("a", "{\"version\":".getBytes(StandardCharsets.UTF_8));
+    assertNull(cache.read());
+  }
+
+  @Test
+  void testLocationsUseSeparateFiles(@TempDir Path directory) throws IOException {
+    ArtifactCache production = new ArtifactCache(directory, LOCATION);
+    ArtifactCache staging = new ArtifactCache(directory, LOCATION.replace("production", "staging"));
+    production.write("a", new ArtifactGenerator().toBytes());
+
+    assertNotEquals(production.getFile(), staging.getFile());
+    assertNull(staging.read());
+  }
+
+  @Test
+  void testUnwritableDirectory(@TempDir Path directory) throws IOException {
+    Path file = Files.createFile(directory.resolve("file"));
+    ArtifactCache cache = new ArtifactCache(file, LOCATION);
+    cache.write("a", new ArtifactGenerator().toBytes());
+    assertNull(cache.read());
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.google.common.io.ByteStreams;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.Test;
+
+public class ArtifactDownloadTest {
+
+  private static final byte[] ARTIFACT =
+      "{\"version\":\"1.0.0\",\"rules\":{\"mboxes\":{},\"views\":{}}}"
+          .getBytes(StandardCharsets.UTF_8);
+
+  @Test
+  void testGzipBodyIsDecompressedWhileRead() throws IOException {
+    byte[] body = gzip(ARTIFACT);
+    ArtifactDownload download = new ArtifactDownload("GZIP ");
+
+    assertArrayEquals(ARTIFACT, read(download, body));
+    assertEquals("gzip", download.getContentEncoding());
+    assertEquals(body.length, download.getReceivedBytes());
+    assertEquals(ARTIFACT.length, download.getDecompressedBytes());
+  }
+
+  @Test
+  void testDeflateBodyIsDecompressed() throws IOException {
+    byte[] body = deflate(ARTIFACT);
+    ArtifactDownload download = new ArtifactDownload("deflate");
+
+    assertArrayEquals(ARTIFACT, read(download, body));
+    assertEquals(body.length, download.getReceivedBytes());
+    assertEquals(ARTIFACT.length, download.getDecompressedBytes());
+  }
+
+  @Test
+  void testUncompressedBodyIsPassedThrough() throws IOException {
+    ArtifactDownload download = new ArtifactDownload(null);
+
+    assertArrayEquals(ARTIFACT, read(download, ARTIFACT));
+    assertNull(download.getContentEncoding());
+    assertEquals(ARTIFACT.length, download.getReceivedBytes());
+    assertEquals(ARTIFACT.length, download.getDecompressedBytes());
+  }
+
+  @Test
+  void testBodyAlreadyDecompressedByClientIsPassedThrough() throws IOException {
+    ArtifactDownload gzip = new ArtifactDownload("gzip");
+    assertArrayEquals(ARTIFACT, read(gzip, ARTIFACT));
+    assertEquals(ARTIFACT.length, gzip.getReceivedBytes());
+    assertEquals(ARTIFACT.length, gzip.getDecompressedBytes());
+    assertArrayEquals(ARTIFACT, read(new ArtifactDownload("deflate"), ARTIFACT));
+  }
+
+  @Test
+  void testEmptyBody() throws IOException {
+    ArtifactDownload download = new ArtifactDownload("gzip");
+
+    assertEquals(0, read(download, new byte[0]).length);
+    assertEquals(0, download.getReceivedBytes());
+    assertEquals(0, download.getDecompressedBytes());
+  }
+
+  private static byte[] read(ArtifactDownload download, byte[] body) throws IOException {
+    try (InputStream in = download.open(new ByteArrayInputStream(body))) {
+      return ByteStreams.toByteArray(in);
+    }
+  }
+
+  static byte[] gzip(byte[] data) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (OutputStream gzip = new GZIPOutputStream(out)) {
+      gzip.write(data);
+    }
+    return out.toByteArray();
+  }
+
+  private static byte[] deflate(byte[] data) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (OutputStream deflate = new DeflaterOutputStream(out)) {
+      deflate.write(data);
+    }
+    return out.toByteArray();
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+public class ArtifactFetchMetricsTest {
+
+  @Test
+  void testEmptyMetrics() {
+    ArtifactFetchMetrics metrics = ArtifactFetchMetrics.EMPTY;
+
+    assertEquals(0, metrics.getFetches());
+    assertEquals(0, metrics.getNotModifiedRate());
+    assertNull(metrics.getLastFetch());
+  }
+
+  @Test
+  void testMetricsAddUpFetches() {
+    ArtifactFetch downloaded = new ArtifactFetch(1000, 200, true, "gzip", 100, 400, 50, 20, 10);
+    ArtifactFetch notModified = new ArtifactFetch(2000, 304, true, null, 0, 0, 5, 0, 0);
+    ArtifactFetch failed = new ArtifactFetch(3000, 500, false, null, 0, 0, 5, 0, 0);
+
+    ArtifactFetchMetrics metrics =
+        ArtifactFetchMetrics.EMPTY
+            .withFetch(downloaded)
+            .withFetch(notModified)
+            .withFetch(notModified)
+            .withFetch(failed);
+
+    assertEquals(4, metrics.getFetches());
+    assertEquals(2, metrics.getNotModified());
+    assertEquals(0.5, metrics.getNotModifiedRate());
+    assertEquals(1, metrics.getFailures());
+    assertEquals(100, metrics.getReceivedBytes());
+    assertEquals(400, metrics.getDecompressedBytes());
+    assertSame(failed, metrics.getLastFetch());
+  }
+}
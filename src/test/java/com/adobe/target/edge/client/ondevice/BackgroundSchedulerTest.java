@@ -0,0 +1,93 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class BackgroundSchedulerTest {
+
+  @Test
+  void testTasksRunOnDaemonThreads() throws InterruptedException {
+    CountDownLatch ran = new CountDownLatch(1);
+    boolean[] daemon = new boolean[1];
+    String[] name = new String[1];
+    BackgroundScheduler.schedule(
+        () -> {
+          daemon[0] = Thread.currentThread().isDaemon();
+          name[0] = Thread.currentThread().getName();
+          ran.countDown();
+        },
+        0);
+    assertTrue(ran.await(5, TimeUnit.SECONDS));
+    assertTrue(daemon[0]);
+    assertTrue(name[0].startsWith("adobe-target-background-"), name[0]);
+  }
+
+  @Test
+  void testFailingTaskKeepsItsSchedule() throws InterruptedException {
+    AtomicInteger runs = new AtomicInteger();
+    CountDownLatch ranThrice = new CountDownLatch(3);
+    ScheduledFuture<?> task =
+        BackgroundScheduler.scheduleWithFixedDelay(
+            () -> {
+              runs.incrementAndGet();
+              ranThrice.countDown();
+              throw new IllegalStateException("expected");
+            },
+            0,
+            10);
+    assertTrue(ranThrice.await(5, TimeUnit.SECONDS));
+    BackgroundScheduler.cancel(task);
+    assertTrue(task.isCancelled());
+    int afterCancel = runs.get();
+    Thread.sleep(100);
+    assertTrue(runs.get() <= afterCancel + 1);
+  }
+
+  @Test
+  void testBlockingTasksRunOnTheirOwnThreads() throws InterruptedException {
+    CountDownLatch ran = new CountDownLatch(1);
+    String[] name = new String[1];
+    ScheduledFuture<?> task =
+        BackgroundScheduler.scheduleBlockingWithFixedDelay(
+            () -> {
+              name[0] = Thread.currentThread().getName();
+              ran.countDown();
+            },
+            0,
+            60000);
+    assertTrue(ran.await(5, TimeUnit.SECONDS));
+    BackgroundScheduler.cancel(task);
+    assertTrue(name[0].startsWith("adobe-target-fetch-"), name[0]);
+  }
+
+  @Test
+  void testTaskThrowingErrorKeepsItsSchedule() throws InterruptedException {
+    CountDownLatch ranTwice = new CountDownLatch(2);
+    ScheduledFuture<?> task =
+        BackgroundScheduler.scheduleBlockingWithFixedDelay(
+            () -> {
+              ranTwice.countDown();
+              throw new AssertionError("expected");
+            },
+            0,
+            10);
+    assertTrue(ranTwice.await(5, TimeUnit.SECONDS));
+    BackgroundScheduler.cancel(task);
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+public class BackoffTest {
+
+  @Test
+  void testCeilingDoublesUpToCap() {
+    Backoff backoff = new Backoff(1000, 60000);
+    assertEquals(1000, backoff.ceilingMillis(1));
+    assertEquals(2000, backoff.ceilingMillis(2));
+    assertEquals(32000, backoff.ceilingMillis(6));
+    assertEquals(60000, backoff.ceilingMillis(7));
+    assertEquals(60000, backoff.ceilingMillis(1000));
+    assertEquals(Long.MAX_VALUE, new Backoff(1000, Long.MAX_VALUE).ceilingMillis(100));
+  }
+
+  @Test
+  void testDelayIsJittered() {
+    Backoff backoff = new Backoff(1000, 60000);
+    Set<Long> delays = new HashSet<>();
+    for (int i = 0; i < 1000; i++) {
+      for (int attempt = 1; attempt <= 10; attempt++) {
+        long delay = backoff.delayMillis(attempt);
+        long ceiling = backoff.ceilingMillis(attempt);
+        assertTrue(delay >= ceiling / 2 && delay <= ceiling, delay + " for " + ceiling);
+        if (attempt == 1) {
+          delays.add(delay);
+        }
+      }
+    }
+    assertTrue(delays.size() > 100);
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.adobe.target.delivery.v1.model.MboxRequest;
+import com.adobe.target.delivery.v1.model.OptionType;
+import com.adobe.target.delivery.v1.model.ViewRequest;
+import com.adobe.target.edge.client.ondevice.CampaignMacroReplacer.ContentTemplate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class CampaignMacroReplacerTest {
+
+  @Test
+  void testMetaMacrosAreResolvedWhenCompiled() {
+    ContentTemplate template =
+        CampaignMacroReplacer.compile(
+            OptionType.HTML, "<b>${campaign.name}</b> ${recipe.id} ${mbox.name}", meta());
+    assertFalse(template.isDynamic());
+    assertEquals("<b>macros</b> 1 home", template.getContent());
+  }
+
+  @Test
+  void testRequestMacrosAreResolvedPerRequest() {
+    ContentTemplate template =
+        CampaignMacroReplacer.compile(
+            OptionType.HTML, "${mbox.index}:${mbox.user}:${activity.id}", meta());
+    assertTrue(template.isDynamic());
+
+    MboxRequest mbox = new MboxRequest().name("macros").index(2);
+    mbox.setParameters(Collections.singletonMap("user", "cheese"));
+    assertEquals("2:cheese:42", new CampaignMacroReplacer(mbox).replaceMacros(template));
+    assertEquals(
+        "${mbox.index}:${mbox.user}:42",
+        new CampaignMacroReplacer(new ViewRequest()).replaceMacros(template));
+  }
+
+  @Test
+  void testActionContent() {
+    Map<String, Object> dynamicAction = new LinkedHashMap<>();
+    dynamicAction.put("type", "setHtml");
+    dynamicAction.put("content", "${mbox.index} ${activity.name}");
+    Map<String, Object> staticAction = new LinkedHashMap<>();
+    staticAction.put("type", "setHtml");
+    staticAction.put("content", "${activity.name}");
+    ContentTemplate template =
+        CampaignMacroReplacer.compile(
+            OptionType.ACTIONS, Arrays.asList(dynamicAction, staticAction), meta());
+
+    List<?> actions =
+        (List<?>) new CampaignMacroReplacer(new MboxRequest().index(3)).replaceMacros(template);
+    assertEquals("3 macros", ((Map<?, ?>) actions.get(0)).get("content"));
+    assertEquals("macros", ((Map<?, ?>) actions.get(1)).get("content"));
+    assertEquals("${mbox.index} ${activity.name}", dynamicAction.get("content"));
+  }
+
+  private static Map<String, Object> meta() {
+    Map<String, Object> meta = new HashMap<>();
+    meta.put("activity.id", 42);
+    meta.put("activity.name", "macros");
+    meta.put("experience.id", 1);
+    meta.put("location.name", "home");
+    return meta;
+  }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.adobe.target.edge.client.http.JacksonObjectMapper;
+import com.adobe.target.edge.client.model.ondevice.OnDeviceDecisioningRule;
+import com.adobe.target.edge.client.model.ondevice.OnDeviceDecisioningRuleSet;
+import com.adobe.target.edge.client.utils.ArtifactGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import kong.unirest.UnirestException;
+import org.junit.jupiter.api.Test;
+
+public class CompiledArtifactTest {
+
+  private static final File TEST_RESOURCES_DIR = new File("src/test/resources");
+
+  private final ObjectMapper mapper = new JacksonObjectMapper().getMapper();
+
+  @Test
+  void testBundledArtifactsRoundTrip() throws IOException {
+    File[] files =
+        TEST_RESOURCES_DIR.listFiles(
+            (dir, name) -> name.startsWith("DECISIONING_") && name.endsWith(".json"));
+    assertTrue(files.length > 0);
+    for (File file : files) {
+      byte[] artifact = Files.readAllBytes(file.toPath());
+      assertRoundTrip(file.getName(), artifact);
+    }
+  }
+
+  @Test
+  void testGeneratedArtifactRoundTrip() throws IOException {
+    byte[] artifact =
+        new ArtifactGenerator().mboxes(20).views(5).conditionDepth(3).responseTokens(4).toBytes();
+    assertRoundTrip("generated", artifact);
+  }
+
+  @Test
+  void testNumbersKeepTheirTypes() {
+    byte[] artifact =
+        ("{\"version\":\"1.0.0\",\"meta\":{\"int\":1,\"long\":10000000000,"
+                + "\"big\":100000000000000000000,\"double\":1.5,\"negative\":-7,"
+                + "\"true\":true,\"false\":false,\"null\":null,\"list\":[1,\"a\",[]]}}")
+            .getBytes(StandardCharsets.UTF_8);
+    Map<String, Object> meta = read(artifact, null).getRuleSet().getMeta();
+    assertEquals(RuleSetParser.parse(artifact).getMeta(), meta);
+    assertEquals(Integer.class, meta.get("int").getClass());
+    assertEquals(Long.class, meta.get("long").getClass());
+    assertEquals(Double.class, meta.get("double").getClass());
+    assertEquals(Boolean.TRUE, meta.get("true"));
+    assertTrue(meta.containsKey("null"));
+    assertNull(meta.get("null"));
+  }
+
+  @Test
+  void testStringsAreShared() throws IOException {
+    byte[] artifact = new ArtifactGenerator().mboxes(2).rulesPerLocation(2).toBytes();
+    OnDeviceDecisioningRuleSet ruleSet = read(artifact, null).getRuleSet();
+    List<OnDeviceDecisioningRule> rules = new ArrayList<>();
+    for (List<OnDeviceDecisioningRule> mboxRules : ruleSet.getRules().getMboxes().values()) {
+      rules.addAll(mboxRules);
+    }
+    assertSame(rules.get(0).getActivityId(), rules.get(1).getActivityId());
+    assertSame(
+        rules.get(0).getMeta().keySet().iterator().next(),
+        rules.get(2).getMeta().keySet().iterator().next());
+  }
+
+  @Test
+  void testETag() throws IOException {
+    byte[] artifact = new ArtifactGenerator().mboxes(1).toBytes();
+    assertEquals("\"abc\"", read(artifact, "\"abc\"").getETag());
+    assertNull(read(artifact, null).getETag());
+  }
+
+  @Test
+  void testRuleSetParserAcceptsCompiledArtifact() throws IOException {
+    byte[] artifact = new ArtifactGenerator().mboxes(3).toBytes();
+    byte[] compiled = CompiledArtifact.compile(artifact, null);
+    assertTrue(CompiledArtifact.isCompiled(compiled));
+    assertFalse(CompiledArtifact.isCompiled(artifact));
+    assertEquals(
+        RuleSetParser.parse(artifact).getLocalMboxes(),
+        RuleSetParser.parse(compiled).getLocalMboxes());
+  }
+
+  @Test
+  void testReadLeavesBufferUntouched() throws IOException {
+    byte[] compiled = CompiledArtifact.compile(new ArtifactGenerator().toBytes(), null);
+    ByteBuffer buffer = ByteBuffer.allocateDirect(compiled.length);
+    buffer.put(compiled).flip();
+    assertEquals("1.0.0", CompiledArtifact.read(buffer).getRuleSet().getVersion());
+    assertEquals(0, buffer.position());
+  }
+
+  @Test
+  void testCorruptArtifacts() throws IOException {
+    byte[] compiled = CompiledArtifact.compile(new ArtifactGenerator().mboxes(3).toBytes(), null);
+    assertThrows(
+        UnirestException.class,
+        () -> CompiledArtifact.read(ByteBuffer.wrap(Arrays.copyOf(compiled, compiled.length / 2))));
+    byte[] otherVersion = compiled.clone();
+    otherVersion[7]++;
+    assertThrows(
+        UnirestException.class, () -> CompiledArtifact.read(ByteBuffer.wrap(otherVersion)));
+    assertThrows(
+        UnirestException.class,
+        () -> CompiledArtifact.compile("{\"version\":".getBytes(StandardCharsets.UTF_8), null));
+  }
+
+  private void assertRoundTrip(String name, byte[] artifact) throws IOException {
+    OnDeviceDecisioningRuleSet expected = RuleSetParser.parse(artifact);
+    OnDeviceDecisioningRuleSet actual = read(artifact, null).getRuleSet();
+    assertEquals(mapper.writeValueAsString(expected), mapper.writeValueAsString(actual), name);
+    assertEquals(expected.getMeta(), actual.getMeta(), name);
+    if (expected.getRules() == null) {
+      return;
+    }
+    assertRulesEqual(name, expected.getRules().getMboxes(), actual.getRules().getMboxes());
+    assertRulesEqual(name, expected.getRules().getViews(), actual.getRules().getViews());
+  }
+
+  private static void assertRulesEqual(
+      String name,
+      Map<String, List<OnDeviceDecisioningRule>> expected,
+      Map<String, List<OnDeviceDecisioningRule>> actual) {
+    if (expected == null) {
+      assertNull(actual, name);
+      return;
+    }
+    assertEquals(expected.keySet(), actual.keySet(), name);
+    for (String key : expected.keySet()) {
+      List<OnDeviceDecisioningRule> expectedRules = expected.get(key);
+      List<OnDeviceDecisioningRule> actualRules = actual.get(key);
+      assertEquals(expectedRules.size(), actualRules.size(), name);
+      for (int i = 0; i < expectedRules.size(); i++) {
+        assertEquals(expectedRules.get(i).getCondition(), actualRules.get(i).getCondition(), name);
+        assertEquals(
+            expectedRules.get(i).getConsequence(), actualRules.get(i).getConsequence(), name);
+        assertEquals(expectedRules.get(i).getMeta(), actualRules.get(i).getMeta(), name);
+      }
+    }
+  }
+
+  private static CompiledArtifact read(byte[] artifact, String etag) {
+    return CompiledArtifact.read(ByteBuffer.wrap(CompiledArtifact.compile(artifact, etag)));
+  }
+}
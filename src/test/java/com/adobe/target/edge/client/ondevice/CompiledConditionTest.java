@@ -0,0 +1,236 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.adobe.target.edge.client.model.ondevice.OnDeviceDecisioningRule;
+import com.adobe.target.edge.client.model.ondevice.OnDeviceDecisioningRuleSet;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.jamsesso.jsonlogic.JsonLogic;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+public class CompiledConditionTest {
+
+  private static final File TEST_RESOURCES_DIR = new File("src/test/resources");
+  private static final int CONTEXTS_PER_RULE = 200;
+
+  private final ObjectMapper mapper =
+      new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+  @Test
+  void testVariablePaths() throws IOException {
+    Map<String, Object> context = context("{\"page\":{\"url_lc\":\"http://a.com/x\"},\"n\":[5]}");
+    assertTrue(evaluate("{\"==\":[{\"var\":\"page.url_lc\"},\"http://a.com/x\"]}", context));
+    assertTrue(evaluate("{\"==\":[{\"var\":\"n.0\"},5]}", context));
+    assertFalse(evaluate("{\"var\":\"page.missing\"}", context));
+    assertTrue(evaluate("{\"var\":[\"page.missing\",true]}", context));
+    assertFalse(evaluate("{\"var\":\"n.1\"}", context));
+  }
+
+  @Test
+  void testLooseEquality() throws IOException {
+    Map<String, Object> context = context("{\"s\":\"5\",\"n\":5,\"e\":\"\",\"b\":true}");
+    assertTrue(evaluate("{\"==\":[{\"var\":\"s\"},5]}", context));
+    assertTrue(evaluate("{\"==\":[{\"var\":\"n\"},\"5.0\"]}", context));
+    assertTrue(evaluate("{\"==\":[{\"var\":\"e\"},0]}", context));
+    assertTrue(evaluate("{\"==\":[{\"var\":\"b\"},1]}", context));
+    assertTrue(evaluate("{\"==\":[{\"var\":\"missing\"},null]}", context));
+    assertFalse(evaluate("{\"==\":[{\"var\":\"s\"},\"05\"]}", context));
+    assertFalse(evaluate("{\"===\":[{\"var\":\"s\"},5]}", context));
+    assertTrue(evaluate("{\"!=\":[{\"var\":\"s\"},6]}", context));
+  }
+
+  @Test
+  void testNumericComparisons() throws IOException {
+    Map<String, Object> context = context("{\"current_time\":\"0930\",\"allocation\":42.5}");
+    assertTrue(evaluate("{\"<=\":[\"0000\",{\"var\":\"current_time\"},\"2359\"]}", context));
+    assertFalse(evaluate("{\"<\":[\"0930\",{\"var\":\"current_time\"},\"2359\"]}", context));
+    assertTrue(evaluate("{\"<\":[{\"var\":\"allocation\"},50]}", context));
+    assertTrue(evaluate("{\">=\":[{\"var\":\"allocation\"},42.5]}", context));
+    assertFalse(evaluate("{\">\":[{\"var\":\"missing\"},-1]}", context));
+    assertFalse(evaluate("{\"<\":[\"abc\",50]}", context));
+  }
+
+  @Test
+  void testInAndLogic() throws IOException {
+    Map<String, Object> context = context("{\"geo\":{\"city\":\"SAN FRANCISCO\"},\"zero\":0}");
+    assertTrue(evaluate("{\"in\":[\"FRAN\",{\"var\":\"geo.city\"}]}", context));
+    assertTrue(
+        evaluate("{\"in\":[{\"var\":\"geo.city\"},[\"BOSTON\",\"SAN FRANCISCO\"]]}", context));
+    assertFalse(evaluate("{\"in\":[{\"var\":\"geo.city\"},[\"BOSTON\"]]}", context));
+    assertTrue(evaluate("{\"!\":{\"in\":[\"LA\",{\"var\":\"geo.city\"}]}}", context));
+    assertTrue(evaluate("{\"or\":[{\"var\":\"zero\"},{\"var\":\"geo.city\"}]}", context));
+    assertFalse(evaluate("{\"and\":[{\"var\":\"geo.city\"},{\"var\":\"zero\"}]}", context));
+    assertTrue(evaluate("{\"!!\":[[1]]}", context));
+    assertTrue(evaluate("true", context));
+  }
+
+  @Test
+  void testContextKeys() throws IOException {
+    String condition =
+        "{\"and\":[{\"==\":[{\"var\":\"user.browserType\"},\"chrome\"]},"
+            + "{\"in\":[\"x\",{\"var\":[\"page.query\",\"\"]}]},"
+            + "{\"<\":[{\"var\":\"allocation\"},50]}]}";
+    assertEquals(
+        new HashSet<>(Arrays.asList("user", "page", "allocation")),
+        CompiledCondition.compile(parse(condition)).getContextKeys());
+    assertEquals(0, CompiledCondition.compile(parse("true")).getContextKeys().size());
+    assertNull(CompiledCondition.compile(parse("{\"var\":\"\"}")).getContextKeys());
+    assertNull(
+        CompiledCondition.compile(parse("{\"var\":{\"cat\":[\"mbox.\",\"a\"]}}")).getContextKeys());
+  }
+
+  @Test
+  void testInvalidConditionsFailOnEvaluation() throws IOException {
+    CompiledCondition unknown = CompiledCondition.compile(parse("{\"regex\":[\"a\",\"b\"]}"));
+    assertThrows(IllegalArgumentException.class, () -> unknown.evaluate(new HashMap<>()));
+    CompiledCondition equality = CompiledCondition.compile(parse("{\"==\":[1,2,3]}"));
+    assertThrows(IllegalArgumentException.class, () -> equality.evaluate(new HashMap<>()));
+  }
+
+  @Test
+  void testConformanceWithJsonLogicOnArtifacts() throws Exception {
+    File[] artifacts =
+        TEST_RESOURCES_DIR.listFiles(
+            (dir, name) -> name.startsWith("DECISIONING_") && name.endsWith(".json"));
+    assertTrue(artifacts != null && artifacts.length > 0);
+    JsonLogic jsonLogic = new JsonLogic();
+    int evaluations = 0;
+    for (File artifact : artifacts) {
+      OnDeviceDecisioningRuleSet ruleSet =
+          mapper.readValue(artifact, OnDeviceDecisioningRuleSet.class);
+      List<OnDeviceDecisioningRule> rules = new ArrayList<>();
+      addRules(rules, ruleSet.getRules().getMboxes());
+      addRules(rules, ruleSet.getRules().getViews());
+      for (OnDeviceDecisioningRule rule : rules) {
+        String expression = mapper.writeValueAsString(rule.getCondition());
+        Random random = new Random(expression.hashCode());
+        Set<String> variables = new LinkedHashSet<>();
+        Set<Object> literals = new LinkedHashSet<>();
+        collect(rule.getCondition(), variables, literals);
+        for (int i = 0; i < CONTEXTS_PER_RULE; i++) {
+          Map<String, Object> context = randomContext(random, variables, literals);
+          boolean expected = JsonLogic.truthy(jsonLogic.apply(expression, context));
+          assertEquals(
+              expected,
+              rule.getCompiledCondition().evaluate(context),
+              artifact.getName() + ": " + expression + " with " + context);
+          evaluations++;
+        }
+      }
+    }
+    assertTrue(evaluations > 0);
+  }
+
+  private boolean evaluate(String condition, Map<String, Object> context) throws IOException {
+    return CompiledCondition.compile(parse(condition)).evaluate(context);
+  }
+
+  private Object parse(String json) throws IOException {
+    return mapper.readValue(json, Object.class);
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<String, Object> context(String json) throws IOException {
+    return mapper.readValue(json, Map.class);
+  }
+
+  private static void addRules(
+      List<OnDeviceDecisioningRule> rules, Map<String, List<OnDeviceDecisioningRule>> byName) {
+    if (byName != null) {
+      byName.values().forEach(rules::addAll);
+    }
+  }
+
+  private static void collect(Object condition, Set<String> variables, Set<Object> literals) {
+    if (condition instanceof Map) {
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) condition).entrySet()) {
+        Object args = entry.getValue();
+        if ("var".equals(entry.getKey())) {
+          Object path = args instanceof List ? ((List<?>) args).get(0) : args;
+          variables.add(String.valueOf(path));
+        } else {
+          collect(args, variables, literals);
+        }
+      }
+    } else if (condition instanceof Collection) {
+      for (Object element : (Collection<?>) condition) {
+        collect(element, variables, literals);
+      }
+    } else if (condition != null) {
+      literals.add(condition);
+    }
+  }
+
+  private static Map<String, Object> randomContext(
+      Random random, Set<String> variables, Set<Object> literals) {
+    List<Object> candidates = new ArrayList<>(Arrays.asList("", "0", 0.0, 1.5, true, false));
+    for (Object literal : literals) {
+      candidates.add(literal);
+      if (literal instanceof String) {
+        String value = (String) literal;
+        candidates.add(value + "x");
+        candidates.add("x" + value);
+        candidates.add(value.toUpperCase());
+        if (value.length() > 1) {
+          candidates.add(value.substring(1));
+        }
+      } else if (literal instanceof Number) {
+        double value = ((Number) literal).doubleValue();
+        candidates.add(value - 1);
+        candidates.add(value + 1);
+        candidates.add(String.valueOf(((Number) literal).longValue()));
+      }
+    }
+    Map<String, Object> context = new HashMap<>();
+    for (String variable : variables) {
+      if (random.nextInt(4) == 0) {
+        continue;
+      }
+      put(context, variable, candidates.get(random.nextInt(candidates.size())));
+    }
+    return context;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void put(Map<String, Object> context, String path, Object value) {
+    String[] segments = path.split("\\.");
+    Map<String, Object> current = context;
+    for (int i = 0; i < segments.length - 1; i++) {
+      Object child = current.get(segments[i]);
+      if (!(child instanceof Map)) {
+        child = new HashMap<String, Object>();
+        current.put(segments[i], child);
+      }
+      current = (Map<String, Object>) child;
+    }
+    current.put(segments[segments.length - 1], value);
+  }
+}
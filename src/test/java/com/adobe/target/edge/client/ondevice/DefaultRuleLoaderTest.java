@@ -27,9 +27,14 @@ import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
 import java.io.*;
+import java.net.InetSocketAddress;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import kong.unirest.*;
@@ -37,6 +42,8 @@ import org.apache.http.HttpStatus;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.AdditionalMatchers;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -89,9 +96,28 @@ class DefaultRuleLoaderTest {
     telemetryService = spy(new TelemetryService(clientConfig));
   }
 
-  static HttpResponse<OnDeviceDecisioningRuleSet> getTestResponse(
+  static HttpResponse<DownloadedArtifact> getTestResponse(
       final String ruleSet, final String etag, final int status) {
-    return new HttpResponse<OnDeviceDecisioningRuleSet>() {
+    if (ruleSet == null) {
+      return getParsedResponse(null, etag, status);
+    }
+    ObjectMapper mapper = new ObjectMapper();
+    mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+    mapper.configure(JsonGenerator.Feature.IGNORE_UNKNOWN, true);
+    mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    mapper.configure(DeserializationFeature.READ_ENUMS_USING_TO_STRING, true);
+    try {
+      OnDeviceDecisioningRuleSet body =
+          mapper.readValue(ruleSet, new TypeReference<OnDeviceDecisioningRuleSet>() {});
+      return getParsedResponse(new DownloadedArtifact(body, null, null, 0, 0, 0), etag, status);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  static HttpResponse<DownloadedArtifact> getParsedResponse(
+      final DownloadedArtifact downloaded, final String etag, final int status) {
+    return new HttpResponse<DownloadedArtifact>() {
       @Override
       public int getStatus() {
         return status;
@@ -112,20 +138,8 @@ class DefaultRuleLoaderTest {
       }
 
       @Override
-      public OnDeviceDecisioningRuleSet getBody() {
-        if (ruleSet == null) {
-          return null;
-        }
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
-        mapper.configure(JsonGenerator.Feature.IGNORE_UNKNOWN, true);
-        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-        mapper.configure(DeserializationFeature.READ_ENUMS_USING_TO_STRING, true);
-        try {
-          return mapper.readValue(ruleSet, new TypeReference<OnDeviceDecisioningRuleSet>() {});
-        } catch (IOException e) {
-          throw new RuntimeException(e);
-        }
+      public DownloadedArtifact getBody() {
+        return downloaded;
       }
 
       @Override
@@ -134,29 +148,29 @@ class DefaultRuleLoaderTest {
       }
 
       @Override
-      public <V> V mapBody(Function<OnDeviceDecisioningRuleSet, V> func) {
+      public <V> V mapBody(Function<DownloadedArtifact, V> func) {
         return null;
       }
 
       @Override
-      public <V> HttpResponse<V> map(Function<OnDeviceDecisioningRuleSet, V> func) {
+      public <V> HttpResponse<V> map(Function<DownloadedArtifact, V> func) {
         return null;
       }
 
       @Override
-      public HttpResponse<OnDeviceDecisioningRuleSet> ifSuccess(
-          Consumer<HttpResponse<OnDeviceDecisioningRuleSet>> consumer) {
+      public HttpResponse<DownloadedArtifact> ifSuccess(
+          Consumer<HttpResponse<DownloadedArtifact>> consumer) {
         return null;
       }
 
       @Override
-      public HttpResponse<OnDeviceDecisioningRuleSet> ifFailure(
-          Consumer<HttpResponse<OnDeviceDecisioningRuleSet>> consumer) {
+      public HttpResponse<DownloadedArtifact> ifFailure(
+          Consumer<HttpResponse<DownloadedArtifact>> consumer) {
         return null;
       }
 
       @Override
-      public <E> HttpResponse<OnDeviceDecisioningRuleSet> ifFailure(
+      public <E> HttpResponse<DownloadedArtifact> ifFailure(
           Class<? extends E> errorClass, Consumer<HttpResponse<E>> consumer) {
         return null;
       }
@@ -206,8 +220,9 @@ class DefaultRuleLoaderTest {
     // do it again, make sure starting works again after a stop
     reset(executionHandler);
     defaultRuleLoader.start(clientConfig, telemetryService);
-    verify(defaultRuleLoader, timeout(1000)).setLatestRules(any(OnDeviceDecisioningRuleSet.class));
-    verify(defaultRuleLoader, timeout(1000)).setLatestETag(eq(etag));
+    verify(defaultRuleLoader, timeout(1000).times(2))
+        .setLatestRules(any(OnDeviceDecisioningRuleSet.class));
+    verify(defaultRuleLoader, timeout(1000).times(2)).setLatestETag(eq(etag));
     verify(executionHandler, timeout(1000)).onDeviceDecisioningReady();
     verify(executionHandler, timeout(1000)).artifactDownloadSucceeded(any());
     verify(executionHandler, never()).artifactDownloadFailed(any());
@@ -225,6 +240,245 @@ class DefaultRuleLoaderTest {
     defaultRuleLoader.stop();
   }
 
+  @Test
+  @SuppressWarnings("unchecked")
+  void testDefaultRuleLoaderDownloadsArtifactOnce() {
+    DefaultRuleLoader defaultRuleLoader = mock(DefaultRuleLoader.class, CALLS_REAL_METHODS);
+
+    byte[] artifact = TEST_RULE_SET.getBytes(StandardCharsets.UTF_8);
+    RawResponse rawResponse = mock(RawResponse.class);
+    Mockito.doReturn(HttpStatus.SC_OK).when(rawResponse).getStatus();
+    Mockito.doAnswer(invocation -> new ByteArrayInputStream(artifact))
+        .when(rawResponse)
+        .getContent();
+    GetRequest request = mock(GetRequest.class);
+    Mockito.doAnswer(
+            invocation -> {
+              Function<RawResponse, DownloadedArtifact> parser = invocation.getArgument(0);
+              DownloadedArtifact downloaded = parser.apply(rawResponse);
+              assertNotNull(downloaded);
+              return getParsedResponse(downloaded, "5b1cf3c050e1a0d16934922bf19ba6ea", 200);
+            })
+        .when(request)
+        .asObject(any(Function.class));
+    Mockito.doReturn(request).when(defaultRuleLoader).generateRequest(any(ClientConfig.class));
+
+    defaultRuleLoader.start(clientConfig, telemetryService);
+    verify(executionHandler, timeout(1000))
+        .artifactDownloadSucceeded(AdditionalMatchers.aryEq(artifact));
+    verify(request, never()).asBytes();
+    verify(rawResponse, never()).getContentAsBytes();
+    defaultRuleLoader.stop();
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testDefaultRuleLoaderDecompressesArtifactAndRecordsMetrics() throws IOException {
+    DefaultRuleLoader defaultRuleLoader = mock(DefaultRuleLoader.class, CALLS_REAL_METHODS);
+
+    byte[] artifact = TEST_RULE_SET.getBytes(StandardCharsets.UTF_8);
+    byte[] body = ArtifactDownloadTest.gzip(artifact);
+    Headers headers = mock(Headers.class);
+    Mockito.doReturn("gzip").when(headers).getFirst("Content-Encoding");
+    RawResponse rawResponse = mock(RawResponse.class);
+    Mockito.doReturn(HttpStatus.SC_OK).when(rawResponse).getStatus();
+    Mockito.doReturn(headers).when(rawResponse).getHeaders();
+    Mockito.doAnswer(invocation -> new ByteArrayInputStream(body)).when(rawResponse).getContent();
+    GetRequest request = mock(GetRequest.class);
+    Mockito.doAnswer(
+            invocation -> {
+              Function<RawResponse, DownloadedArtifact> parser = invocation.getArgument(0);
+              DownloadedArtifact downloaded = parser.apply(rawResponse);
+              assertNotNull(downloaded);
+              return getParsedResponse(downloaded, "5b1cf3c050e1a0d16934922bf19ba6ea", 200);
+            })
+        .when(request)
+        .asObject(any(Function.class));
+    Mockito.doReturn(request).when(defaultRuleLoader).generateRequest(any(ClientConfig.class));
+
+    defaultRuleLoader.start(clientConfig, telemetryService);
+    verify(executionHandler, timeout(1000))
+        .artifactDownloadSucceeded(AdditionalMatchers.aryEq(artifact));
+    defaultRuleLoader.refresh();
+
+    ArtifactFetchMetrics metrics = defaultRuleLoader.getFetchMetrics();
+    assertTrue(metrics.getFetches() >= 1);
+    assertEquals(0, metrics.getNotModified());
+    ArtifactFetch fetch = metrics.getLastFetch();
+    assertEquals(HttpStatus.SC_OK, fetch.getStatus());
+    assertTrue(fetch.isSucceeded());
+    assertEquals("gzip", fetch.getContentEncoding());
+    assertEquals(body.length, fetch.getReceivedBytes());
+    assertEquals(artifact.length, fetch.getDecompressedBytes());
+    defaultRuleLoader.stop();
+  }
+
+  @Test
+  void testDefaultRuleLoaderCountsCompressedBytesOfServedArtifact() throws IOException {
+    byte[] artifact = TEST_RULE_SET.getBytes(StandardCharsets.UTF_8);
+    byte[] body = ArtifactDownloadTest.gzip(artifact);
+    List<String> acceptEncodings = new CopyOnWriteArrayList<>();
+    HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext(
+        "/rules.json",
+        exchange -> {
+          acceptEncodings.add(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+          exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+          exchange.getResponseHeaders().add("ETag", "5b1cf3c050e1a0d16934922bf19ba6ea");
+          exchange.sendResponseHeaders(HttpStatus.SC_OK, body.length);
+          try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+          }
+        });
+    server.start();
+    String url = "http://localhost:" + server.getAddress().getPort() + "/rules.json";
+    DefaultRuleLoader defaultRuleLoader =
+        new DefaultRuleLoader() {
+          @Override
+          String getLocalDecisioningUrl(ClientConfig clientConfig) {
+            return url;
+          }
+        };
+    try {
+      defaultRuleLoader.start(clientConfig, telemetryService);
+      verify(executionHandler, timeout(5000))
+          .artifactDownloadSucceeded(AdditionalMatchers.aryEq(artifact));
+      // a synchronous fetch, so its metrics are recorded before they are read
+      defaultRuleLoader.refresh();
+
+      assertEquals(ArtifactDownload.ACCEPT_ENCODING, acceptEncodings.get(0));
+      ArtifactFetch fetch = defaultRuleLoader.getFetchMetrics().getLastFetch();
+      assertEquals(HttpStatus.SC_OK, fetch.getStatus());
+      assertEquals("gzip", fetch.getContentEncoding());
+      assertEquals(body.length, fetch.getReceivedBytes());
+      assertEquals(artifact.length, fetch.getDecompressedBytes());
+      assertNotNull(defaultRuleLoader.getLatestRules());
+    } finally {
+      defaultRuleLoader.stop();
+      server.stop(0);
+    }
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testDefaultRuleLoaderWritesArtifactCache(@TempDir Path cacheDirectory) {
+    DefaultRuleLoader defaultRuleLoader = mock(DefaultRuleLoader.class, CALLS_REAL_METHODS);
+    ClientConfig cachingConfig =
+        ClientConfig.builder()
+            .organizationId(TEST_ORG_ID)
+            .onDeviceEnvironment("production")
+            .defaultDecisioningMethod(DecisioningMethod.ON_DEVICE)
+            .onDeviceDecisioningHandler(executionHandler)
+            .onDeviceArtifactCacheDirectory(cacheDirectory)
+            .build();
+
+    String etag = "5b1cf3c050e1a0d16934922bf19ba6ea";
+    byte[] artifact = TEST_RULE_SET.getBytes(StandardCharsets.UTF_8);
+    RawResponse rawResponse = mock(RawResponse.class);
+    Mockito.doReturn(HttpStatus.SC_OK).when(rawResponse).getStatus();
+    Mockito.doAnswer(invocation -> new ByteArrayInputStream(artifact))
+        .when(rawResponse)
+        .getContent();
+    GetRequest request = mock(GetRequest.class);
+    Mockito.doAnswer(
+            invocation -> {
+              Function<RawResponse, DownloadedArtifact> parser = invocation.getArgument(0);
+              DownloadedArtifact downloaded = parser.apply(rawResponse);
+              assertNotNull(downloaded);
+              return getParsedResponse(downloaded, etag, HttpStatus.SC_OK);
+            })
+        .when(request)
+        .asObject(any(Function.class));
+    Mockito.doReturn(request).when(defaultRuleLoader).generateRequest(any(ClientConfig.class));
+
+    defaultRuleLoader.start(cachingConfig, telemetryService);
+    verify(defaultRuleLoader, timeout(1000)).setLatestETag(eq(etag));
+    // the cache is written before the handler is told about the download
+    verify(executionHandler, timeout(1000)).artifactDownloadSucceeded(any());
+    defaultRuleLoader.stop();
+
+    CompiledArtifact cached =
+        new ArtifactCache(cacheDirectory, defaultRuleLoader.getLocation()).read();
+    assertNotNull(cached);
+    assertEquals(etag, cached.getETag());
+    assertNotNull(cached.getRuleSet().getRules().getMboxes().get("product"));
+  }
+
+  @Test
+  void testDefaultRuleLoaderWarmStartsFromArtifactCache(@TempDir Path cacheDirectory) {
+    DefaultRuleLoader defaultRuleLoader = mock(DefaultRuleLoader.class, CALLS_REAL_METHODS);
+    ClientConfig cachingConfig =
+        ClientConfig.builder()
+            .organizationId(TEST_ORG_ID)
+            .onDeviceEnvironment("production")
+            .defaultDecisioningMethod(DecisioningMethod.ON_DEVICE)
+            .exceptionHandler(exceptionHandler)
+            .onDeviceDecisioningHandler(executionHandler)
+            .onDeviceArtifactCacheDirectory(cacheDirectory)
+            .build();
+
+    String etag = "5b1cf3c050e1a0d16934922bf19ba6ea";
+    new ArtifactCache(cacheDirectory, defaultRuleLoader.getLocalDecisioningUrl(cachingConfig))
+        .write(etag, TEST_RULE_SET.getBytes(StandardCharsets.UTF_8));
+    Mockito.doReturn(null).when(defaultRuleLoader).generateRequest(any(ClientConfig.class));
+    Mockito.doReturn(getTestResponse(null, etag, HttpStatus.SC_NOT_MODIFIED))
+        .when(defaultRuleLoader)
+        .executeRequest(any());
+
+    defaultRuleLoader.start(cachingConfig, telemetryService);
+    assertNotNull(defaultRuleLoader.getLatestRules());
+    verify(defaultRuleLoader).setLatestETag(eq(etag));
+    verify(executionHandler).onDeviceDecisioningReady();
+    verify(defaultRuleLoader, timeout(1000)).executeRequest(any());
+    verify(executionHandler, never()).artifactDownloadFailed(any());
+    verify(exceptionHandler, never()).handleException(any(TargetClientException.class));
+    assertNotNull(defaultRuleLoader.getLatestRules());
+    defaultRuleLoader.stop();
+  }
+
+  @Test
+  void testDefaultRuleLoaderPublishesSnapshots() {
+    DefaultRuleLoader defaultRuleLoader = mock(DefaultRuleLoader.class, CALLS_REAL_METHODS);
+    assertEquals(0, defaultRuleLoader.getSnapshot().getGeneration());
+    assertNull(defaultRuleLoader.getSnapshot().getRuleSet());
+
+    String etag = "5b1cf3c050e1a0d16934922bf19ba6ea";
+    Mockito.doReturn(null).when(defaultRuleLoader).generateRequest(any(ClientConfig.class));
+    Mockito.doReturn(getTestResponse(TEST_RULE_SET, etag, HttpStatus.SC_OK))
+        .when(defaultRuleLoader)
+        .executeRequest(any());
+
+    defaultRuleLoader.start(clientConfig, telemetryService);
+    verify(executionHandler, timeout(1000)).onDeviceDecisioningReady();
+    RuleSetSnapshot first = defaultRuleLoader.getSnapshot();
+    assertEquals(1, first.getGeneration());
+    assertEquals(etag, first.getETag());
+    assertNotNull(first.getRuleSet());
+    assertSame(first.getRuleSet(), defaultRuleLoader.getLatestRules());
+
+    Mockito.doReturn(getTestResponse(null, etag, HttpStatus.SC_NOT_MODIFIED))
+        .when(defaultRuleLoader)
+        .executeRequest(any());
+    defaultRuleLoader.refresh();
+    assertEquals(1, defaultRuleLoader.getSnapshot().getGeneration());
+    assertSame(first.getRuleSet(), defaultRuleLoader.getLatestRules());
+
+    Mockito.doReturn(getTestResponse(TEST_RULE_SET, "other", HttpStatus.SC_OK))
+        .when(defaultRuleLoader)
+        .executeRequest(any());
+    defaultRuleLoader.refresh();
+    RuleSetSnapshot second = defaultRuleLoader.getSnapshot();
+    assertEquals(2, second.getGeneration());
+    assertEquals("other", second.getETag());
+    assertNotSame(first.getRuleSet(), second.getRuleSet());
+    assertEquals(1, first.getGeneration());
+    assertEquals(etag, first.getETag());
+
+    defaultRuleLoader.stop();
+    assertEquals(0, defaultRuleLoader.getSnapshot().getGeneration());
+    assertNull(defaultRuleLoader.getLatestRules());
+  }
+
   @Test
   void testDefaultRuleLoaderNullResponse() {
     DefaultRuleLoader defaultRuleLoader = mock(DefaultRuleLoader.class, CALLS_REAL_METHODS);
@@ -287,7 +541,8 @@ class DefaultRuleLoaderTest {
 
     String etag = "5b1cf3c050e1a0d16934922bf19ba6ea";
     Mockito.doReturn(null).when(defaultRuleLoader).generateRequest(any(ClientConfig.class));
-    Mockito.doReturn(getTestResponse(TEST_RULE_SET, etag, HttpStatus.SC_OK))
+    // the bundled payload is current, so the first poll must not replace it
+    Mockito.doReturn(getTestResponse(null, etag, HttpStatus.SC_NOT_MODIFIED))
         .when(defaultRuleLoader)
         .executeRequest(any());
 
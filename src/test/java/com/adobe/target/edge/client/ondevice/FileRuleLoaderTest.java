@@ -0,0 +1,147 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.adobe.target.edge.client.ClientConfig;
+import com.adobe.target.edge.client.model.DecisioningMethod;
+import com.adobe.target.edge.client.utils.ArtifactGenerator;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class FileRuleLoaderTest {
+
+  // watch services that poll, e.g. on macOS, may take several seconds to report a change
+  private static final long CHANGE_TIMEOUT_MS = 30 * 1000;
+
+  private final ClientConfig clientConfig =
+      ClientConfig.builder()
+          .organizationId(InMemoryRuleLoaderTest.TEST_ORG_ID)
+          .defaultDecisioningMethod(DecisioningMethod.ON_DEVICE)
+          .build();
+
+  @Test
+  void testLoadsFileOnStart(@TempDir Path directory) throws IOException {
+    Path file = directory.resolve("rules.json");
+    new ArtifactGenerator().mboxes(2).writeTo(file);
+    FileRuleLoader loader = new FileRuleLoader(file);
+    try {
+      loader.start(clientConfig, null);
+
+      assertNotNull(loader.getLatestRules());
+      assertEquals(1, loader.getSnapshot().getGeneration());
+      assertEquals(file.toUri().toString(), loader.getLocation());
+    } finally {
+      loader.stop();
+    }
+  }
+
+  @Test
+  void testReloadsReplacedFile(@TempDir Path directory) throws Exception {
+    Path file = directory.resolve("rules.json");
+    new ArtifactGenerator().mboxes(2).writeTo(file);
+    FileRuleLoader loader = new FileRuleLoader(file);
+    try {
+      loader.start(clientConfig, null);
+
+      Path next = directory.resolve("rules.json.tmp");
+      new ArtifactGenerator().mboxes(3).writeTo(next);
+      Files.move(next, file, StandardCopyOption.ATOMIC_MOVE);
+
+      awaitGeneration(loader, 2);
+      assertEquals(3, loader.getLatestRules().getRules().getMboxes().size());
+    } finally {
+      loader.stop();
+    }
+  }
+
+  @Test
+  void testWaitsForFileToBeCreated(@TempDir Path directory) throws Exception {
+    Path file = directory.resolve("rules.json");
+    FileRuleLoader loader = new FileRuleLoader(file);
+    try {
+      loader.start(clientConfig, null);
+      assertNull(loader.getLatestRules());
+
+      new ArtifactGenerator().writeTo(file);
+
+      awaitGeneration(loader, 1);
+    } finally {
+      loader.stop();
+    }
+  }
+
+  @Test
+  void testReloadsThroughSwappedSymlink(@TempDir Path directory) throws Exception {
+    // the layout of a mounted Kubernetes config map
+    Path first = Files.createDirectory(directory.resolve("..first"));
+    new ArtifactGenerator().mboxes(2).writeTo(first.resolve("rules.json"));
+    Path data = Files.createSymbolicLink(directory.resolve("..data"), first.getFileName());
+    Path file =
+        Files.createSymbolicLink(
+            directory.resolve("rules.json"), data.getFileName().resolve("rules.json"));
+    FileRuleLoader loader = new FileRuleLoader(file);
+    try {
+      loader.start(clientConfig, null);
+      assertEquals(2, loader.getLatestRules().getRules().getMboxes().size());
+
+      Path second = Files.createDirectory(directory.resolve("..second"));
+      new ArtifactGenerator().mboxes(3).writeTo(second.resolve("rules.json"));
+      Path swap = Files.createSymbolicLink(directory.resolve("..data_tmp"), second.getFileName());
+      Files.move(swap, data, StandardCopyOption.ATOMIC_MOVE);
+
+      awaitGeneration(loader, 2);
+      assertEquals(3, loader.getLatestRules().getRules().getMboxes().size());
+    } finally {
+      loader.stop();
+    }
+  }
+
+  @Test
+  void testKeepsRulesWhenFileIsInvalid(@TempDir Path directory) throws Exception {
+    Path file = directory.resolve("rules.json");
+    new ArtifactGenerator().writeTo(file);
+    FileRuleLoader loader = new FileRuleLoader(file);
+    try {
+      loader.start(clientConfig, null);
+      RuleSetSnapshot snapshot = loader.getSnapshot();
+
+      Files.write(file, "{\"version\":".getBytes(StandardCharsets.UTF_8));
+      loader.refresh();
+
+      assertEquals(snapshot, loader.getSnapshot());
+    } finally {
+      loader.stop();
+    }
+  }
+
+  private static void awaitGeneration(RuleLoader loader, long generation)
+      throws InterruptedException {
+    long deadline = System.currentTimeMillis() + CHANGE_TIMEOUT_MS;
+    while (loader.getSnapshot().getGeneration() < generation
+        && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertTrue(
+        loader.getSnapshot().getGeneration() >= generation,
+        "artifact change not picked up within " + CHANGE_TIMEOUT_MS + " ms");
+  }
+}
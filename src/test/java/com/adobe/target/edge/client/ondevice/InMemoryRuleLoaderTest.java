@@ -0,0 +1,188 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.adobe.target.edge.client.ClientConfig;
+import com.adobe.target.edge.client.exception.TargetClientException;
+import com.adobe.target.edge.client.model.DecisioningMethod;
+import com.adobe.target.edge.client.model.ondevice.OnDeviceDecisioningHandler;
+import com.adobe.target.edge.client.utils.ArtifactGenerator;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class InMemoryRuleLoaderTest {
+
+  static final String TEST_ORG_ID = "0DD934B85278256B0A490D44@AdobeOrg";
+
+  private final AtomicInteger ready = new AtomicInteger();
+  private final List<byte[]> succeeded = new ArrayList<>();
+  private final List<TargetClientException> exceptions = new ArrayList<>();
+
+  @Test
+  void testPushInstallsArtifact() throws IOException {
+    InMemoryRuleLoader loader = new InMemoryRuleLoader();
+    loader.start(clientConfig(null), null);
+    assertNull(loader.getLatestRules());
+    assertEquals(0, ready.get());
+
+    byte[] artifact = new ArtifactGenerator().mboxes(2).toBytes();
+    assertTrue(loader.push(artifact));
+
+    assertNotNull(loader.getLatestRules());
+    assertEquals(1, loader.getSnapshot().getGeneration());
+    assertEquals(1, loader.getNumFetches());
+    assertNotNull(loader.getLastFetch());
+    assertEquals(1, ready.get());
+    assertEquals(1, succeeded.size());
+    assertSame(artifact, succeeded.get(0));
+  }
+
+  @Test
+  void testPushReusesUnchangedRules() throws IOException {
+    InMemoryRuleLoader loader = new InMemoryRuleLoader();
+    loader.start(clientConfig(null), null);
+    ArtifactGenerator generator = new ArtifactGenerator().mboxes(2);
+    loader.push(generator.toBytes());
+    RuleSetSnapshot first = loader.getSnapshot();
+
+    assertTrue(loader.push(generator.toBytes()));
+
+    RuleSetSnapshot second = loader.getSnapshot();
+    assertEquals(2, second.getGeneration());
+    String mbox = ArtifactGenerator.mboxName(0);
+    assertSame(
+        first.getRuleSet().getRules().getMboxes().get(mbox),
+        second.getRuleSet().getRules().getMboxes().get(mbox));
+    assertEquals(1, ready.get());
+  }
+
+  @Test
+  void testInvalidPushKeepsCurrentRules() throws IOException {
+    InMemoryRuleLoader loader = new InMemoryRuleLoader();
+    loader.start(clientConfig(null), null);
+    loader.push(new ArtifactGenerator().toBytes());
+    RuleSetSnapshot snapshot = loader.getSnapshot();
+
+    assertFalse(loader.push("{\"version\":".getBytes(StandardCharsets.UTF_8)));
+    assertFalse(loader.push("{\"version\":\"2.0.0\"}".getBytes(StandardCharsets.UTF_8)));
+
+    assertSame(snapshot, loader.getSnapshot());
+    assertEquals(2, exceptions.size());
+    assertEquals(1, succeeded.size());
+  }
+
+  @Test
+  void testArtifactPushedBeforeStart() throws IOException {
+    InMemoryRuleLoader loader = new InMemoryRuleLoader();
+    assertTrue(loader.push(new ArtifactGenerator().toBytes()));
+    assertEquals(0, ready.get());
+
+    loader.start(clientConfig(null), null);
+
+    assertNotNull(loader.getLatestRules());
+    assertEquals(1, ready.get());
+  }
+
+  @Test
+  void testArtifactPayloadPushedOnStart() throws IOException {
+    InMemoryRuleLoader loader = new InMemoryRuleLoader();
+    loader.start(clientConfig(new ArtifactGenerator().toBytes()), null);
+
+    assertNotNull(loader.getLatestRules());
+    assertEquals(1, ready.get());
+  }
+
+  @Test
+  void testHandlersAreCalledWithoutHoldingTheLoader() throws IOException {
+    InMemoryRuleLoader loader = new InMemoryRuleLoader();
+    List<Boolean> heldLocks = new ArrayList<>();
+    ClientConfig clientConfig =
+        ClientConfig.builder()
+            .organizationId(TEST_ORG_ID)
+            .defaultDecisioningMethod(DecisioningMethod.ON_DEVICE)
+            .onDeviceDecisioningHandler(
+                new OnDeviceDecisioningHandler() {
+                  @Override
+                  public void onDeviceDecisioningReady() {
+                    heldLocks.add(Thread.holdsLock(loader));
+                  }
+
+                  @Override
+                  public void artifactDownloadSucceeded(byte[] artifactData) {
+                    heldLocks.add(Thread.holdsLock(loader));
+                  }
+
+                  @Override
+                  public void artifactDownloadFailed(TargetClientException e) {}
+                })
+            .build();
+    loader.start(clientConfig, null);
+
+    assertTrue(loader.push(new ArtifactGenerator().toBytes()));
+
+    assertEquals(2, heldLocks.size());
+    assertFalse(heldLocks.contains(true));
+  }
+
+  @Test
+  void testClientConfigRuleLoaderIsUsed() {
+    InMemoryRuleLoader loader = new InMemoryRuleLoader();
+    ClientConfig clientConfig =
+        ClientConfig.builder()
+            .client("inmemoryruleloadertest")
+            .organizationId(TEST_ORG_ID)
+            .defaultDecisioningMethod(DecisioningMethod.ON_DEVICE)
+            .onDeviceRuleLoader(loader)
+            .build();
+
+    assertSame(
+        loader,
+        OnDeviceDecisioningServicesManager.getInstance()
+            .getServices(clientConfig, null)
+            .getRuleLoader());
+  }
+
+  ClientConfig clientConfig(byte[] artifactPayload) {
+    return ClientConfig.builder()
+        .organizationId(TEST_ORG_ID)
+        .defaultDecisioningMethod(DecisioningMethod.ON_DEVICE)
+        .onDeviceArtifactPayload(artifactPayload)
+        .exceptionHandler(exceptions::add)
+        .onDeviceDecisioningHandler(
+            new OnDeviceDecisioningHandler() {
+              @Override
+              public void onDeviceDecisioningReady() {
+                ready.incrementAndGet();
+              }
+
+              @Override
+              public void artifactDownloadSucceeded(byte[] artifactData) {
+                succeeded.add(artifactData);
+              }
+
+              @Override
+              public void artifactDownloadFailed(TargetClientException e) {}
+            })
+        .build();
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class LazyContextTest {
+
+  @Test
+  void testValuesAreComputedOnFirstRead() {
+    AtomicInteger calls = new AtomicInteger();
+    LazyContext context = new LazyContext();
+    context.putLazy("user", () -> calls.incrementAndGet());
+    assertTrue(context.containsKey("user"));
+    assertEquals(0, calls.get());
+    assertEquals(1, context.get("user"));
+    assertEquals(1, context.get("user"));
+    assertEquals(1, calls.get());
+  }
+
+  @Test
+  void testLayersReadThroughWithoutModifyingParent() {
+    AtomicInteger calls = new AtomicInteger();
+    LazyContext requestContext = new LazyContext();
+    requestContext.putLazy("geo", () -> calls.incrementAndGet());
+    LazyContext first = new LazyContext(requestContext);
+    LazyContext second = new LazyContext(requestContext);
+    first.put("allocation", 1.0);
+    second.put("geo", "shadowed");
+    assertEquals(1, first.get("geo"));
+    assertEquals("shadowed", second.get("geo"));
+    assertEquals(1, requestContext.get("geo"));
+    assertEquals(1, calls.get());
+    assertFalse(requestContext.containsKey("allocation"));
+    assertEquals(2, first.size());
+    assertEquals(1, second.size());
+
+    LazyContext ruleContext = new LazyContext(first);
+    ruleContext.put("allocation", 2.0);
+    assertEquals(2.0, ruleContext.get("allocation"));
+    assertEquals(1.0, first.get("allocation"));
+    assertEquals(1, ruleContext.get("geo"));
+  }
+
+  @Test
+  void testIterationComputesAllValues() {
+    LazyContext context = new LazyContext();
+    context.put("current_day", "1");
+    context.putLazy("page", () -> "url");
+    Map<String, Object> expected = new HashMap<>();
+    expected.put("current_day", "1");
+    expected.put("page", "url");
+    assertEquals(expected, new HashMap<>(context));
+    assertEquals(expected, context);
+    expected.put("allocation", 3.0);
+    LazyContext child = new LazyContext(context);
+    child.put("allocation", 3.0);
+    assertEquals(expected, new HashMap<>(child));
+  }
+}
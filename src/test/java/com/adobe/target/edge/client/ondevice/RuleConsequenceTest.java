@@ -0,0 +1,90 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.adobe.target.delivery.v1.model.MboxRequest;
+import com.adobe.target.delivery.v1.model.Metric;
+import com.adobe.target.delivery.v1.model.Option;
+import com.adobe.target.delivery.v1.model.OptionType;
+import com.adobe.target.delivery.v1.model.View;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class RuleConsequenceTest {
+
+  private static final String CONSEQUENCE =
+      "{\"name\":\"home\",\"key\":\"home\",\"options\":[{\"type\":\"json\","
+          + "\"content\":{\"a\":{\"b\":1}},\"eventToken\":\"token\","
+          + "\"responseTokens\":{\"activity.id\":1}}],"
+          + "\"metrics\":[{\"type\":\"click\",\"selector\":\"#b\",\"eventToken\":\"click\"}]}";
+
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  @Test
+  void testOptionsAreNewCopiesSharingImmutableContent() throws IOException {
+    RuleConsequence consequence = RuleConsequence.from(parse(CONSEQUENCE), null);
+    List<Option> first = consequence.newOptions(new MboxRequest());
+    List<Option> second = consequence.newOptions(new MboxRequest());
+    assertEquals(1, first.size());
+    assertEquals(OptionType.JSON, first.get(0).getType());
+    assertEquals("token", first.get(0).getEventToken());
+    assertNotSame(first.get(0), second.get(0));
+
+    first.get(0).getResponseTokens().put("geo.city", "BASEL");
+    first.get(0).setEventToken(null);
+    assertEquals(1, second.get(0).getResponseTokens().size());
+    assertEquals("token", consequence.newOptions(new MboxRequest()).get(0).getEventToken());
+
+    @SuppressWarnings("unchecked")
+    Map<String, Object> content = (Map<String, Object>) first.get(0).getContent();
+    assertThrows(UnsupportedOperationException.class, () -> content.put("c", 2));
+  }
+
+  @Test
+  void testMetricsAndView() throws IOException {
+    RuleConsequence consequence = RuleConsequence.from(parse(CONSEQUENCE), null);
+    List<Metric> metrics = consequence.newMetrics();
+    assertEquals(1, metrics.size());
+    assertEquals("#b", metrics.get(0).getSelector());
+    assertNotSame(metrics.get(0), consequence.newMetrics().get(0));
+
+    List<Option> options = consequence.newOptions(new MboxRequest());
+    View view = consequence.newView(options);
+    assertEquals("home", view.getName());
+    assertEquals("home", view.getKey());
+    assertSame(options, view.getOptions());
+    assertEquals(metrics, view.getMetrics());
+  }
+
+  @Test
+  void testEmptyConsequence() throws IOException {
+    assertTrue(RuleConsequence.from(null, null).isEmpty());
+    RuleConsequence consequence = RuleConsequence.from(parse("{\"name\":\"mbox\"}"), null);
+    assertNull(consequence.newOptions(new MboxRequest()));
+    assertNull(consequence.newMetrics());
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<String, Object> parse(String json) throws IOException {
+    return mapper.readValue(json, Map.class);
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.adobe.target.edge.client.model.ondevice.OnDeviceDecisioningRule;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+public class RuleIndexTest {
+
+  private static final String RULES =
+      "["
+          + "{\"ruleKey\":\"1\",\"condition\":{\"and\":["
+          + "{\"<\":[0,{\"var\":\"allocation\"},50]},"
+          + "{\"==\":[{\"var\":\"page.url_lc\"},\"http://a.com/\"]}]}},"
+          + "{\"ruleKey\":\"2\",\"condition\":{\"<\":[0,{\"var\":\"allocation\"},50]}},"
+          + "{\"ruleKey\":\"3\",\"condition\":"
+          + "{\"==\":[\"http://b.com/\",{\"var\":\"page.url_lc\"}]}},"
+          + "{\"ruleKey\":\"4\",\"condition\":{\"or\":["
+          + "{\"==\":[{\"var\":\"page.url_lc\"},\"http://a.com/\"]},{\"var\":\"mbox.x\"}]}},"
+          + "{\"ruleKey\":\"5\",\"condition\":{\"and\":["
+          + "{\"==\":[{\"var\":\"page.url_lc\"},\"http://a.com/\"]},{\"var\":\"mbox.x\"}]}}"
+          + "]";
+
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  @Test
+  void testCandidatesKeepOrderAndSkipFailedGuards() throws IOException {
+    RuleIndex index = RuleIndex.build(rules());
+    assertEquals("1,2,4,5", ruleKeys(index.candidates(context("http://a.com/"))));
+    assertEquals("2,3,4", ruleKeys(index.candidates(context("http://b.com/"))));
+    assertEquals("2,4", ruleKeys(index.candidates(context("http://c.com/"))));
+    assertEquals("2,4", ruleKeys(index.candidates(new HashMap<>())));
+  }
+
+  @Test
+  void testNonStringValuesVisitAllRules() throws IOException {
+    RuleIndex index = RuleIndex.build(rules());
+    Map<String, Object> context = new HashMap<>();
+    context.put("page", new HashMap<>(Collections.singletonMap("url_lc", 5)));
+    assertSame(index.getRules(), index.candidates(context));
+  }
+
+  @Test
+  void testAllocationIsNotAGuard() throws IOException {
+    List<OnDeviceDecisioningRule> rules =
+        mapper.readValue(
+            "[{\"ruleKey\":\"1\",\"condition\":{\"==\":[{\"var\":\"allocation\"},\"50\"]}},"
+                + "{\"ruleKey\":\"2\",\"condition\":{\"and\":["
+                + "{\"==\":[{\"var\":\"allocation\"},\"50\"]},"
+                + "{\"==\":[{\"var\":\"page.url_lc\"},\"http://a.com/\"]}]}}]",
+            new TypeReference<List<OnDeviceDecisioningRule>>() {});
+    assertTrue(rules.get(0).getCompiledCondition().getEqualityGuards().isEmpty());
+    RuleIndex index = RuleIndex.build(rules);
+    assertEquals("1,2", ruleKeys(index.candidates(context("http://a.com/"))));
+    assertEquals("1", ruleKeys(index.candidates(context("http://b.com/"))));
+
+    Map<String, Object> ruleContext = new HashMap<>(context("http://a.com/"));
+    ruleContext.put("allocation", 50.0);
+    assertTrue(rules.get(0).getCompiledCondition().evaluate(ruleContext));
+  }
+
+  @Test
+  void testUnguardedRulesAreNotCopied() throws IOException {
+    List<OnDeviceDecisioningRule> rules =
+        mapper.readValue(
+            "[{\"ruleKey\":\"1\",\"condition\":true}]",
+            new TypeReference<List<OnDeviceDecisioningRule>>() {});
+    RuleIndex index = RuleIndex.build(rules);
+    assertSame(rules, index.candidates(context("http://a.com/")));
+  }
+
+  private List<OnDeviceDecisioningRule> rules() throws IOException {
+    return mapper.readValue(RULES, new TypeReference<List<OnDeviceDecisioningRule>>() {});
+  }
+
+  private static Map<String, Object> context(String url) {
+    Map<String, Object> page = new HashMap<>();
+    page.put("url_lc", url);
+    Map<String, Object> context = new HashMap<>();
+    context.put("page", page);
+    return context;
+  }
+
+  private static String ruleKeys(List<OnDeviceDecisioningRule> rules) {
+    return rules.stream().map(OnDeviceDecisioningRule::getRuleKey).collect(Collectors.joining(","));
+  }
+}
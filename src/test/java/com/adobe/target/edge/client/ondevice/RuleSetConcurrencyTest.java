@@ -0,0 +1,123 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.adobe.target.delivery.v1.model.MboxRequest;
+import com.adobe.target.delivery.v1.model.Option;
+import com.adobe.target.edge.client.ClientConfig;
+import com.adobe.target.edge.client.http.JacksonObjectMapper;
+import com.adobe.target.edge.client.model.ondevice.OnDeviceDecisioningRule;
+import com.adobe.target.edge.client.model.ondevice.OnDeviceDecisioningRuleSet;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+public class RuleSetConcurrencyTest {
+
+  private static final File ARTIFACT =
+      new File("src/test/resources/DECISIONING_PAYLOAD_CAMPAIGN_MACROS.json");
+  private static final int THREADS = 8;
+  private static final int ITERATIONS = 200;
+
+  @Test
+  void testRuleSetIsUnmodifiable() throws IOException {
+    OnDeviceDecisioningRuleSet ruleSet = loadRuleSet();
+    OnDeviceDecisioningRule rule = ruleSet.getRules().getMboxes().get("macros").get(0);
+    assertThrows(UnsupportedOperationException.class, () -> ruleSet.getResponseTokens().clear());
+    assertThrows(UnsupportedOperationException.class, () -> ruleSet.getLocalMboxes().clear());
+    assertThrows(UnsupportedOperationException.class, () -> ruleSet.getRules().getMboxes().clear());
+    assertThrows(
+        UnsupportedOperationException.class,
+        () -> ruleSet.getRules().getMboxes().get("macros").clear());
+    assertThrows(UnsupportedOperationException.class, () -> rule.getMeta().put("a", 1));
+    assertThrows(UnsupportedOperationException.class, () -> rule.getConsequence().clear());
+  }
+
+  @Test
+  void testMatchedRuleOutputIsIndependentAcrossThreads() throws Exception {
+    OnDeviceDecisioningRuleSet ruleSet = loadRuleSet();
+    List<OnDeviceDecisioningRule> rules = ruleSet.getRules().getMboxes().get("macros");
+    OnDeviceDecisioningRuleExecutor executor =
+        new OnDeviceDecisioningRuleExecutor(
+            ClientConfig.builder().client("emeaprod4").organizationId("org").build());
+    Set<String> responseTokens = ruleSet.getResponseTokenSet();
+
+    Map<String, String> expected = new HashMap<>();
+    for (int visitor = 0; visitor < 20; visitor++) {
+      expected.put("v" + visitor, execute(executor, rules, responseTokens, "v" + visitor));
+    }
+
+    ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int thread = 0; thread < THREADS; thread++) {
+        futures.add(
+            pool.submit(
+                () -> {
+                  for (int i = 0; i < ITERATIONS; i++) {
+                    String visitorId = "v" + (i % 20);
+                    assertEquals(
+                        expected.get(visitorId),
+                        execute(executor, rules, responseTokens, visitorId));
+                  }
+                  return null;
+                }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  private static String execute(
+      OnDeviceDecisioningRuleExecutor executor,
+      List<OnDeviceDecisioningRule> rules,
+      Set<String> responseTokens,
+      String visitorId) {
+    Map<String, String> parameters = new HashMap<>();
+    parameters.put("user", visitorId);
+    MboxRequest details = new MboxRequest().name("macros").index(1);
+    details.setParameters(parameters);
+    StringBuilder result = new StringBuilder();
+    for (OnDeviceDecisioningRule rule : rules) {
+      List<Option> options =
+          executor.executeRule(
+              new HashMap<>(), details, visitorId, null, rule, responseTokens, null);
+      if (options != null) {
+        for (Option option : options) {
+          result.append(option.getContent()).append(option.getResponseTokens());
+        }
+      }
+    }
+    return result.toString();
+  }
+
+  private static OnDeviceDecisioningRuleSet loadRuleSet() throws IOException {
+    OnDeviceDecisioningRuleSet ruleSet =
+        new JacksonObjectMapper().getMapper().readValue(ARTIFACT, OnDeviceDecisioningRuleSet.class);
+    ruleSet.compile();
+    return ruleSet;
+  }
+}
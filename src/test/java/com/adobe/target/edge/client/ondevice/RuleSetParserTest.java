@@ -0,0 +1,77 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.adobe.target.edge.client.model.ondevice.OnDeviceDecisioningRuleSet;
+import com.adobe.target.edge.client.utils.ArtifactGenerator;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import kong.unirest.UnirestException;
+import org.junit.jupiter.api.Test;
+
+public class RuleSetParserTest {
+
+  @Test
+  void testParseBytesAndStream() throws IOException {
+    byte[] artifact = new ArtifactGenerator().mboxes(3).views(2).toBytes();
+    boolean[] closed = new boolean[1];
+    ByteArrayInputStream stream =
+        new ByteArrayInputStream(artifact) {
+          @Override
+          public void close() {
+            closed[0] = true;
+          }
+        };
+
+    OnDeviceDecisioningRuleSet fromBytes = RuleSetParser.parse(artifact);
+    OnDeviceDecisioningRuleSet fromStream = RuleSetParser.parse(stream);
+
+    assertTrue(closed[0]);
+    assertEquals("1.0.0", fromBytes.getVersion());
+    assertEquals(fromBytes.getLocalMboxes(), fromStream.getLocalMboxes());
+    assertEquals(fromBytes.getLocalViews(), fromStream.getLocalViews());
+    assertEquals(3, fromStream.getRules().getMboxes().size());
+    assertEquals(2, fromStream.getRules().getViews().size());
+  }
+
+  @Test
+  void testParseMalformedArtifact() {
+    assertThrows(
+        UnirestException.class,
+        () -> RuleSetParser.parse("{\"version\":".getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  void testInvalidRuleSetMessage() throws IOException {
+    OnDeviceDecisioningRuleSet valid =
+        RuleSetParser.parse(new ArtifactGenerator().mboxes(1).toBytes());
+    OnDeviceDecisioningRuleSet nextMajor =
+        RuleSetParser.parse(
+            "{\"version\":\"2.0.0\",\"rules\":{}}".getBytes(StandardCharsets.UTF_8));
+
+    assertNull(RuleSetParser.invalidRuleSetMessage(valid, "memory"));
+    assertEquals(
+        "Unknown rules version: 2.0.0", RuleSetParser.invalidRuleSetMessage(nextMajor, null));
+    assertEquals(
+        "Unable to parse local-decisioning rule set",
+        RuleSetParser.invalidRuleSetMessage(null, null));
+    assertEquals(
+        "Unable to parse local-decisioning rule set from: memory",
+        RuleSetParser.invalidRuleSetMessage(null, "memory"));
+  }
+}
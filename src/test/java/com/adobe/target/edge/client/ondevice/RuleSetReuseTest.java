@@ -0,0 +1,111 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.adobe.target.edge.client.model.ondevice.OnDeviceDecisioningRule;
+import com.adobe.target.edge.client.model.ondevice.OnDeviceDecisioningRuleSet;
+import com.adobe.target.edge.client.model.ondevice.OnDeviceDecisioningRules;
+import com.adobe.target.edge.client.utils.ArtifactGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class RuleSetReuseTest {
+
+  private final ObjectMapper mapper = new ObjectMapper();
+  private final ArtifactGenerator generator = new ArtifactGenerator().mboxes(5).views(3);
+
+  @Test
+  void testUnchangedArtifactReusesEverything() throws IOException {
+    OnDeviceDecisioningRuleSet previous = compile(generator.generate(), null);
+    OnDeviceDecisioningRuleSet next = RuleSetParser.parse(generator.toBytes());
+
+    assertEquals(32, next.compile(previous));
+    OnDeviceDecisioningRules rules = next.getRules();
+    OnDeviceDecisioningRules previousRules = previous.getRules();
+    for (String mbox : rules.getMboxes().keySet()) {
+      assertSame(previousRules.getMboxes().get(mbox), rules.getMboxes().get(mbox));
+      assertSame(previousRules.getMboxRuleIndex(mbox), rules.getMboxRuleIndex(mbox));
+    }
+    for (String view : rules.getViews().keySet()) {
+      assertSame(previousRules.getViewRuleIndex(view), rules.getViewRuleIndex(view));
+    }
+    assertSame(previousRules.getAllViews(), rules.getAllViews());
+    assertSame(previousRules.getAllViewsRuleIndex(), rules.getAllViewsRuleIndex());
+    assertEquals(previousRules.getContextKeys(), rules.getContextKeys());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testChangedRuleIsCompiledAgain() throws IOException {
+    OnDeviceDecisioningRuleSet previous = compile(generator.generate(), null);
+    Map<String, Object> artifact = generator.generate();
+    String changedMbox = ArtifactGenerator.mboxName(2);
+    List<Map<String, Object>> changedRules =
+        (List<Map<String, Object>>) mboxRules(artifact).get(changedMbox);
+    changedRules.get(1).put("condition", true);
+
+    OnDeviceDecisioningRuleSet next = RuleSetParser.parse(mapper.writeValueAsBytes(artifact));
+    assertEquals(31, next.compile(previous));
+
+    OnDeviceDecisioningRules rules = next.getRules();
+    OnDeviceDecisioningRules previousRules = previous.getRules();
+    List<OnDeviceDecisioningRule> mboxRules = rules.getMboxes().get(changedMbox);
+    List<OnDeviceDecisioningRule> previousMboxRules = previousRules.getMboxes().get(changedMbox);
+    assertSame(previousMboxRules.get(0), mboxRules.get(0));
+    assertNotSame(previousMboxRules.get(1), mboxRules.get(1));
+    assertEquals(previousMboxRules.get(1).getRuleKey(), mboxRules.get(1).getRuleKey());
+    assertEquals(true, mboxRules.get(1).getCondition());
+    assertNotSame(previousRules.getMboxRuleIndex(changedMbox), rules.getMboxRuleIndex(changedMbox));
+    assertSame(mboxRules, rules.getMboxRuleIndex(changedMbox).getRules());
+
+    String otherMbox = ArtifactGenerator.mboxName(3);
+    assertSame(previousRules.getMboxRuleIndex(otherMbox), rules.getMboxRuleIndex(otherMbox));
+    assertSame(previousRules.getAllViewsRuleIndex(), rules.getAllViewsRuleIndex());
+  }
+
+  @Test
+  void testRemovedAndAddedLocations() throws IOException {
+    OnDeviceDecisioningRuleSet previous =
+        compile(new ArtifactGenerator().mboxes(4).generate(), null);
+    OnDeviceDecisioningRuleSet next =
+        RuleSetParser.parse(new ArtifactGenerator().mboxes(2).views(1).toBytes());
+
+    assertEquals(8, next.compile(previous));
+    OnDeviceDecisioningRules rules = next.getRules();
+    assertEquals(2, rules.getMboxes().size());
+    assertSame(
+        previous.getRules().getMboxRuleIndex(ArtifactGenerator.mboxName(1)),
+        rules.getMboxRuleIndex(ArtifactGenerator.mboxName(1)));
+    assertNull(rules.getMboxRuleIndex(ArtifactGenerator.mboxName(3)));
+    assertEquals(4, rules.getAllViewsRuleIndex().getRules().size());
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> mboxRules(Map<String, Object> artifact) {
+    return (Map<String, Object>) ((Map<String, Object>) artifact.get("rules")).get("mboxes");
+  }
+
+  private OnDeviceDecisioningRuleSet compile(
+      Map<String, Object> artifact, OnDeviceDecisioningRuleSet previous) throws IOException {
+    OnDeviceDecisioningRuleSet ruleSet = RuleSetParser.parse(mapper.writeValueAsBytes(artifact));
+    ruleSet.compile(previous);
+    return ruleSet;
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.adobe.target.edge.client.model.ondevice.OnDeviceDecisioningRuleSet;
+import java.util.Date;
+import org.junit.jupiter.api.Test;
+
+public class RuleSetSnapshotTest {
+
+  @Test
+  void testSnapshotsAreImmutable() {
+    OnDeviceDecisioningRuleSet first = new OnDeviceDecisioningRuleSet();
+    OnDeviceDecisioningRuleSet second = new OnDeviceDecisioningRuleSet();
+
+    RuleSetSnapshot loaded = RuleSetSnapshot.EMPTY.withRuleSet(first, "a");
+    RuleSetSnapshot fetched = loaded.withFetch(1000);
+    RuleSetSnapshot reloaded = fetched.withRuleSet(second, "b").withFetch(2000);
+
+    assertNull(RuleSetSnapshot.EMPTY.getRuleSet());
+    assertEquals(0, RuleSetSnapshot.EMPTY.getGeneration());
+    assertEquals(0, RuleSetSnapshot.EMPTY.getNumFetches());
+    assertNull(RuleSetSnapshot.EMPTY.getLastFetch());
+
+    assertSame(first, loaded.getRuleSet());
+    assertEquals(1, loaded.getGeneration());
+    assertEquals(0, loaded.getNumFetches());
+
+    assertSame(first, fetched.getRuleSet());
+    assertEquals("a", fetched.getETag());
+    assertEquals(1, fetched.getGeneration());
+    assertEquals(1, fetched.getNumFetches());
+    assertEquals(new Date(1000), fetched.getLastFetch());
+
+    assertSame(second, reloaded.getRuleSet());
+    assertEquals("b", reloaded.getETag());
+    assertEquals(2, reloaded.getGeneration());
+    assertEquals(2, reloaded.getNumFetches());
+    assertEquals(new Date(2000), reloaded.getLastFetch());
+  }
+
+  @Test
+  void testSnapshotOfUntrackedLoader() {
+    OnDeviceDecisioningRuleSet ruleSet = new OnDeviceDecisioningRuleSet();
+    Date lastFetch = new Date(5000);
+    RuleSetSnapshot snapshot = RuleSetSnapshot.of(ruleSet, 3, lastFetch);
+    lastFetch.setTime(0);
+
+    assertSame(ruleSet, snapshot.getRuleSet());
+    assertNull(snapshot.getETag());
+    assertEquals(0, snapshot.getGeneration());
+    assertEquals(3, snapshot.getNumFetches());
+    assertEquals(new Date(5000), snapshot.getLastFetch());
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.ondevice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.adobe.target.delivery.v1.model.AuthenticatedState;
+import com.adobe.target.delivery.v1.model.ChannelType;
+import com.adobe.target.delivery.v1.model.Context;
+import com.adobe.target.delivery.v1.model.CustomerId;
+import com.adobe.target.delivery.v1.model.VisitorId;
+import com.adobe.target.edge.client.ClientConfig;
+import com.adobe.target.edge.client.http.JacksonObjectMapper;
+import com.adobe.target.edge.client.model.TargetDeliveryRequest;
+import com.adobe.target.edge.client.service.VisitorProvider;
+import com.adobe.target.edge.client.utils.ArtifactGenerator;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class TraceHandlerTest {
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testProfileTraceListsCustomerIds() throws IOException {
+    VisitorProvider.init("testOrgId");
+    InMemoryRuleLoader ruleLoader = new InMemoryRuleLoader();
+    ruleLoader.push(new ArtifactGenerator().toBytes());
+    VisitorId visitorId =
+        new VisitorId()
+            .tntId("338e3c1e51f7416a8e1ccba4f81acea0.28_0")
+            .customerIds(
+                Arrays.asList(
+                    new CustomerId()
+                        .id("crm-1")
+                        .integrationCode("crm")
+                        .authenticatedState(AuthenticatedState.AUTHENTICATED),
+                    new CustomerId().id("loyalty-2").integrationCode("loyalty")));
+    TargetDeliveryRequest request =
+        TargetDeliveryRequest.builder()
+            .context(new Context().channel(ChannelType.WEB))
+            .id(visitorId)
+            .build();
+    ClientConfig clientConfig =
+        ClientConfig.builder()
+            .client("tracehandlertest")
+            .organizationId("0DD934B85278256B0A490D44@AdobeOrg")
+            .build();
+
+    TraceHandler traceHandler =
+        new TraceHandler(
+            clientConfig,
+            ruleLoader,
+            new JacksonObjectMapper().getMapper(),
+            ruleLoader.getSnapshot(),
+            request);
+
+    Map<String, Object> profile =
+        (Map<String, Object>) traceHandler.getCurrentTrace().get("profile");
+    Map<String, Object> traceVisitorId = (Map<String, Object>) profile.get("visitorId");
+    assertEquals("338e3c1e51f7416a8e1ccba4f81acea0", traceVisitorId.get("tntId"));
+    assertTrue(traceVisitorId.get("customerIds") instanceof List);
+    List<Map<String, Object>> customerIds =
+        (List<Map<String, Object>>) traceVisitorId.get("customerIds");
+    assertEquals(2, customerIds.size());
+    assertEquals("crm-1", customerIds.get(0).get("id"));
+    assertEquals("crm", customerIds.get(0).get("integrationCode"));
+    assertEquals("loyalty-2", customerIds.get(1).get("id"));
+  }
+}
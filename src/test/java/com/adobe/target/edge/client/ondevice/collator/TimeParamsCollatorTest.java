@@ -12,6 +12,7 @@
 package com.adobe.target.edge.client.ondevice.collator;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.Mockito.CALLS_REAL_METHODS;
 import static org.mockito.Mockito.mock;
 
@@ -19,7 +20,14 @@ import com.adobe.target.delivery.v1.model.ExecuteRequest;
 import com.adobe.target.delivery.v1.model.RequestDetails;
 import com.adobe.target.edge.client.model.TargetDeliveryRequest;
 import com.adobe.target.edge.client.service.VisitorProvider;
+import java.text.SimpleDateFormat;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Date;
 import java.util.Map;
+import java.util.Random;
+import java.util.TimeZone;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
@@ -39,4 +47,36 @@ public class TimeParamsCollatorTest {
     assertEquals("3", result.get(TimeParamsCollator.CURRENT_DAY));
     assertEquals("2246", result.get(TimeParamsCollator.CURRENT_TIME));
   }
+
+  @Test
+  public void testFixedClock() {
+    long now = 1592433971000L;
+    TimeParamsCollator collator =
+        new TimeParamsCollator(Clock.fixed(Instant.ofEpochMilli(now), ZoneOffset.UTC));
+    Map<String, Object> first = collator.collateParams(null, null);
+    Map<String, Object> second = collator.collateParams(null, null);
+    assertEquals(now, first.get(TimeParamsCollator.CURRENT_TIMESTAMP));
+    assertEquals("3", first.get(TimeParamsCollator.CURRENT_DAY));
+    assertEquals("2246", first.get(TimeParamsCollator.CURRENT_TIME));
+    assertSame(
+        first.get(TimeParamsCollator.CURRENT_TIME), second.get(TimeParamsCollator.CURRENT_TIME));
+  }
+
+  @Test
+  public void testMatchesDateFormat() {
+    SimpleDateFormat dayFormat = new SimpleDateFormat("u");
+    dayFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+    SimpleDateFormat timeFormat = new SimpleDateFormat("HHmm");
+    timeFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+    Random random = new Random(42);
+    for (int i = 0; i < 1000; i++) {
+      long now = i == 0 ? 0L : (long) (random.nextDouble() * 4102444800000L);
+      TimeParamsCollator collator =
+          new TimeParamsCollator(Clock.fixed(Instant.ofEpochMilli(now), ZoneOffset.UTC));
+      Map<String, Object> result = collator.collateParams(null, null);
+      Date nowDate = new Date(now);
+      assertEquals(dayFormat.format(nowDate), result.get(TimeParamsCollator.CURRENT_DAY));
+      assertEquals(timeFormat.format(nowDate), result.get(TimeParamsCollator.CURRENT_TIME));
+    }
+  }
 }
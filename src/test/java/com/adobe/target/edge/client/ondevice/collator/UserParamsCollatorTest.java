@@ -12,6 +12,7 @@
 package com.adobe.target.edge.client.ondevice.collator;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 import com.adobe.target.delivery.v1.model.ClientHints;
 import com.adobe.target.delivery.v1.model.Context;
@@ -148,6 +149,39 @@ public class UserParamsCollatorTest {
     assertEquals("98", result.get(UserParamsCollator.USER_BROWSER_VERSION));
   }
 
+  @Test
+  public void testParsedUserAgentsAreCached() {
+    UserParamsCollator cachingCollator = new UserParamsCollator(2);
+    String firefox = "Mozilla/5.0 (Windows NT 6.1; WOW64; rv:54.0) Gecko/20100101 Firefox/54.0";
+    Map<String, Object> first =
+        cachingCollator.collateParams(requestWithUserAgent(firefox), pageLoad);
+    Map<String, Object> second =
+        cachingCollator.collateParams(requestWithUserAgent(firefox), pageLoad);
+    assertSame(first, second);
+    assertEquals(1, cachingCollator.getCacheHitCount());
+    assertEquals(1, cachingCollator.getCacheMissCount());
+
+    ClientHints clientHints = new ClientHints();
+    clientHints.setPlatform("Linux");
+    Map<String, Object> withHints =
+        cachingCollator.collateParams(requestWithClientHintsAndUA(clientHints, firefox), pageLoad);
+    assertEquals("linux", withHints.get(UserParamsCollator.USER_PLATFORM));
+    assertEquals("windows", first.get(UserParamsCollator.USER_PLATFORM));
+    assertEquals(2, cachingCollator.getCacheMissCount());
+  }
+
+  @Test
+  public void testCacheCanBeDisabled() {
+    UserParamsCollator uncachedCollator = new UserParamsCollator(0);
+    String firefox = "Mozilla/5.0 (Windows NT 6.1; WOW64; rv:54.0) Gecko/20100101 Firefox/54.0";
+    uncachedCollator.collateParams(requestWithUserAgent(firefox), pageLoad);
+    Map<String, Object> result =
+        uncachedCollator.collateParams(requestWithUserAgent(firefox), pageLoad);
+    assertEquals("firefox", result.get(UserParamsCollator.USER_BROWSER_TYPE));
+    assertEquals(0, uncachedCollator.getCacheHitCount());
+    assertEquals(2, uncachedCollator.getCacheMissCount());
+  }
+
   private TargetDeliveryRequest requestWithUserAgent(String userAgent) {
     return TargetDeliveryRequest.builder()
         .execute(new ExecuteRequest().pageLoad(pageLoad))
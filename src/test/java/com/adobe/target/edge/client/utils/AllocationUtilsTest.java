@@ -14,6 +14,7 @@ package com.adobe.target.edge.client.utils;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.Random;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -38,6 +39,32 @@ public class AllocationUtilsTest {
         73.15);
   }
 
+  @Test
+  public void testSegmentedHashMatchesConcatenatedHash() {
+    Random random = new Random(42);
+    for (int i = 0; i < 10000; i++) {
+      String clientId = randomString(random);
+      String activityId = i % 100 == 0 ? null : String.valueOf(random.nextInt(1_000_000));
+      String visitorId = randomString(random);
+      String salt = randomString(random);
+      String deviceId = AllocationUtils.getDeviceId(clientId, activityId, visitorId, salt);
+      assertEquals(
+          HashingUtils.hashUnencodedChars(deviceId),
+          new HashingUtils.UnencodedCharsHasher()
+              .putChars(String.valueOf(clientId))
+              .putChar('.')
+              .putChars(String.valueOf(activityId))
+              .putChar('.')
+              .putChars(String.valueOf(visitorId))
+              .putChar('.')
+              .putChars(String.valueOf(salt))
+              .hash());
+      assertEquals(
+          AllocationUtils.calculateAllocation(deviceId),
+          AllocationUtils.calculateAllocation(clientId, activityId, visitorId, salt));
+    }
+  }
+
   @Test
   public void testAllocationInRange() {
     for (long i = 0; i < 10000; i++) {
@@ -47,4 +74,12 @@ public class AllocationUtilsTest {
       assertTrue(allocation <= 100);
     }
   }
+
+  private static String randomString(Random random) {
+    char[] chars = new char[random.nextInt(40)];
+    for (int i = 0; i < chars.length; i++) {
+      chars[i] = (char) (random.nextBoolean() ? 'a' + random.nextInt(26) : random.nextInt(0xFFFF));
+    }
+    return new String(chars);
+  }
 }
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates synthetic on-device decisioning artifacts of configurable size. Each location gets
+ * {@code rulesPerLocation} rules, paired into two-experience A/B activities, whose conditions are
+ * balanced and/or trees of {@code conditionDepth} levels over page, user, mbox, geo and time
+ * params. The same settings and seed always produce the same artifact.
+ */
+public class ArtifactGenerator {
+
+  public static final String MBOX_PREFIX = "mbox-";
+  public static final String VIEW_PREFIX = "view-";
+  public static final String GLOBAL_MBOX = "target-global-mbox";
+
+  private static final List<String> RESPONSE_TOKENS =
+      Arrays.asList(
+          "activity.id",
+          "activity.name",
+          "experience.id",
+          "experience.name",
+          "offer.id",
+          "offer.name",
+          "option.id",
+          "option.name",
+          "geo.country",
+          "geo.city",
+          "geo.state");
+
+  private static final String[][] CONDITION_PARAMS = {
+    {"page.domain", "www.example.com", "www.example.org"},
+    {"page.path", "/products/", "/checkout/"},
+    {"user.browserType", "safari", "chrome"},
+    {"user.platform", "mac", "windows"},
+    {"mbox.category", "shoes", "hats"},
+    {"geo.country", "US", "CA"},
+    {"current_day", "1", "6"}
+  };
+
+  private final ObjectMapper mapper = new ObjectMapper();
+  private int mboxes = 10;
+  private int views = 0;
+  private int rulesPerLocation = 4;
+  private int conditionDepth = 2;
+  private int responseTokens = 6;
+  private long seed = 1;
+
+  public ArtifactGenerator mboxes(int mboxes) {
+    this.mboxes = mboxes;
+    return this;
+  }
+
+  public ArtifactGenerator views(int views) {
+    this.views = views;
+    return this;
+  }
+
+  public ArtifactGenerator rulesPerLocation(int rulesPerLocation) {
+    this.rulesPerLocation = rulesPerLocation;
+    return this;
+  }
+
+  public ArtifactGenerator conditionDepth(int conditionDepth) {
+    this.conditionDepth = conditionDepth;
+    return this;
+  }
+
+  public ArtifactGenerator responseTokens(int responseTokens) {
+    this.responseTokens = responseTokens;
+    return this;
+  }
+
+  public ArtifactGenerator seed(long seed) {
+    this.seed = seed;
+    return this;
+  }
+
+  public static String mboxName(int index) {
+    return MBOX_PREFIX + index;
+  }
+
+  public static String viewName(int index) {
+    return VIEW_PREFIX + index;
+  }
+
+  public Map<String, Object> generate() {
+    Random random = new Random(seed);
+    List<String> tokens = responseTokens();
+    List<String> mboxNames = new ArrayList<>();
+    Map<String, Object> mboxRules = new LinkedHashMap<>();
+    for (int i = 0; i < mboxes; i++) {
+      String name = mboxName(i);
+      mboxNames.add(name);
+      mboxRules.put(name, locationRules(name, "mbox", i, tokens, random));
+    }
+    List<String> viewNames = new ArrayList<>();
+    Map<String, Object> viewRules = new LinkedHashMap<>();
+    for (int i = 0; i < views; i++) {
+      String name = viewName(i);
+      viewNames.add(name);
+      viewRules.put(name, locationRules(name, "view", mboxes + i, tokens, random));
+    }
+    Map<String, Object> rules = new LinkedHashMap<>();
+    rules.put("mboxes", mboxRules);
+    rules.put("views", viewRules);
+
+    Map<String, Object> meta = new LinkedHashMap<>();
+    meta.put("clientCode", "generated");
+    meta.put("environment", "production");
+    meta.put("generatedAt", "2021-01-01T00:00:00.000Z");
+
+    Map<String, Object> ruleSet = new LinkedHashMap<>();
+    ruleSet.put("version", "1.0.0");
+    ruleSet.put("meta", meta);
+    ruleSet.put("globalMbox", GLOBAL_MBOX);
+    ruleSet.put("geoTargetingEnabled", true);
+    ruleSet.put("responseTokens", tokens);
+    ruleSet.put("remoteMboxes", Collections.emptyList());
+    ruleSet.put("remoteViews", Collections.emptyList());
+    ruleSet.put("localMboxes", mboxNames);
+    ruleSet.put("localViews", viewNames);
+    ruleSet.put("rules", rules);
+    return ruleSet;
+  }
+
+  public String toJson() throws JsonProcessingException {
+    return mapper.writeValueAsString(generate());
+  }
+
+  public byte[] toBytes() throws JsonProcessingException {
+    return mapper.writeValueAsBytes(generate());
+  }
+
+  public void writeTo(Path path) throws IOException {
+    Files.write(path, toBytes());
+  }
+
+  private List<String> responseTokens() {
+    List<String> tokens = new ArrayList<>();
+    for (int i = 0; i < responseTokens; i++) {
+      tokens.add(i < RESPONSE_TOKENS.size() ? RESPONSE_TOKENS.get(i) : "profile.token" + i);
+    }
+    return tokens;
+  }
+
+  private List<Object> locationRules(
+      String name, String type, int locationIndex, List<String> tokens, Random random) {
+    List<Object> rules = new ArrayList<>();
+    for (int i = 0; i < rulesPerLocation; i++) {
+      int activityId = 100_000 + locationIndex * rulesPerLocation + i / 2;
+      int experienceId = i % 2;
+      rules.add(rule(name, type, activityId, experienceId, tokens, random));
+    }
+    return rules;
+  }
+
+  private Map<String, Object> rule(
+      String name,
+      String type,
+      int activityId,
+      int experienceId,
+      List<String> tokens,
+      Random random) {
+    Map<String, Object> meta = new LinkedHashMap<>();
+    meta.put("activityId", activityId);
+    meta.put("activityType", "ab");
+    meta.put("experienceId", experienceId);
+    meta.put("locationName", name);
+    meta.put("locationType", type);
+    meta.put("locationId", 0);
+    meta.put("audienceIds", Collections.singletonList(5_000_000 + random.nextInt(1_000_000)));
+    meta.put("offerIds", Collections.singletonList(600_000 + random.nextInt(100_000)));
+    for (String token : tokens) {
+      if (!token.startsWith("geo.")) {
+        meta.put(token, token.endsWith(".id") ? activityId : token + " " + activityId);
+      }
+    }
+
+    Map<String, Object> allocation = new LinkedHashMap<>();
+    allocation.put(
+        "<", Arrays.asList(experienceId * 50, variable("allocation"), experienceId * 50 + 50));
+    Map<String, Object> condition = new LinkedHashMap<>();
+    condition.put("and", Arrays.asList(allocation, condition(conditionDepth, random)));
+
+    Map<String, Object> rule = new LinkedHashMap<>();
+    rule.put("ruleKey", activityId + "-" + experienceId);
+    rule.put("activityId", String.valueOf(activityId));
+    rule.put("meta", meta);
+    rule.put("condition", condition);
+    rule.put("consequence", consequence(name, type, activityId, experienceId, random));
+    return rule;
+  }
+
+  private Object condition(int depth, Random random) {
+    if (depth <= 0) {
+      String[] param = CONDITION_PARAMS[random.nextInt(CONDITION_PARAMS.length)];
+      Map<String, Object> comparison = new LinkedHashMap<>();
+      comparison.put("==", Arrays.asList(param[1 + random.nextInt(2)], variable(param[0])));
+      return comparison;
+    }
+    Map<String, Object> node = new LinkedHashMap<>();
+    node.put(
+        random.nextBoolean() ? "and" : "or",
+        Arrays.asList(condition(depth - 1, random), condition(depth - 1, random)));
+    return node;
+  }
+
+  private Map<String, Object> consequence(
+      String name, String type, int activityId, int experienceId, Random random) {
+    Map<String, Object> option = new LinkedHashMap<>();
+    List<Object> metrics = new ArrayList<>();
+    if ("view".equals(type)) {
+      String selector = "#content > DIV:nth-of-type(" + (experienceId + 1) + ")";
+      Map<String, Object> action = new LinkedHashMap<>();
+      action.put("type", "setHtml");
+      action.put("selector", selector);
+      action.put("cssSelector", selector);
+      action.put("content", "<p>" + name + " experience " + experienceId + "</p>");
+      option.put("type", "actions");
+      option.put("eventToken", eventToken(random));
+      option.put("content", Collections.singletonList(action));
+      Map<String, Object> metric = new LinkedHashMap<>();
+      metric.put("type", "click");
+      metric.put("selector", selector);
+      metric.put("eventToken", eventToken(random));
+      metrics.add(metric);
+    } else {
+      Map<String, Object> content = new LinkedHashMap<>();
+      content.put("activity", activityId);
+      content.put("experience", experienceId);
+      content.put("location", name);
+      option.put("type", "json");
+      option.put("eventToken", eventToken(random));
+      option.put("content", content);
+    }
+    Map<String, Object> consequence = new LinkedHashMap<>();
+    consequence.put("name", name);
+    consequence.put("options", Collections.singletonList(option));
+    consequence.put("metrics", metrics);
+    return consequence;
+  }
+
+  private static Map<String, Object> variable(String name) {
+    return Collections.singletonMap("var", name);
+  }
+
+  private static String eventToken(Random random) {
+    byte[] bytes = new byte[48];
+    random.nextBytes(bytes);
+    return Base64.getEncoder().encodeToString(bytes);
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2021 Adobe. All rights reserved.
+ * This file is licensed to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License. You may obtain a copy
+ * of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under
+ * the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR REPRESENTATIONS
+ * OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package com.adobe.target.edge.client.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import com.adobe.target.edge.client.http.JacksonObjectMapper;
+import com.adobe.target.edge.client.model.ondevice.OnDeviceDecisioningRule;
+import com.adobe.target.edge.client.model.ondevice.OnDeviceDecisioningRuleSet;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class ArtifactGeneratorTest {
+
+  @Test
+  void testGeneratedArtifactParses() throws IOException {
+    byte[] artifact =
+        new ArtifactGenerator()
+            .mboxes(20)
+            .views(5)
+            .rulesPerLocation(6)
+            .conditionDepth(3)
+            .responseTokens(14)
+            .toBytes();
+    OnDeviceDecisioningRuleSet ruleSet =
+        new JacksonObjectMapper().getMapper().readValue(artifact, OnDeviceDecisioningRuleSet.class);
+    ruleSet.compile();
+
+    assertEquals("1.0.0", ruleSet.getVersion());
+    assertEquals(20, ruleSet.getLocalMboxes().size());
+    assertEquals(5, ruleSet.getLocalViews().size());
+    assertEquals(14, ruleSet.getResponseTokens().size());
+    assertEquals(20, ruleSet.getRules().getMboxes().size());
+    assertEquals(5, ruleSet.getRules().getViews().size());
+    List<OnDeviceDecisioningRule> rules =
+        ruleSet.getRules().getMboxes().get(ArtifactGenerator.mboxName(19));
+    assertEquals(6, rules.size());
+    for (OnDeviceDecisioningRule rule : rules) {
+      assertFalse(rule.getRuleConsequence().isEmpty());
+    }
+    OnDeviceDecisioningRule viewRule =
+        ruleSet.getRules().getViews().get(ArtifactGenerator.viewName(0)).get(0);
+    assertEquals("view", viewRule.getMeta().get("locationType"));
+  }
+
+  @Test
+  void testGenerationIsDeterministic() throws IOException {
+    ArtifactGenerator generator = new ArtifactGenerator().mboxes(5).views(2).seed(42);
+    byte[] artifact = generator.toBytes();
+    assertArrayEquals(artifact, generator.toBytes());
+    assertFalse(Arrays.equals(artifact, generator.seed(43).toBytes()));
+  }
+}
@@ -25,6 +25,7 @@ import com.adobe.target.edge.client.ondevice.OnDeviceDecisioningEvaluator;
 import com.adobe.target.edge.client.ondevice.OnDeviceDecisioningService;
 import com.adobe.target.edge.client.ondevice.RuleLoader;
 import com.adobe.target.edge.client.ondevice.collator.ParamsCollator;
+import com.adobe.target.edge.client.ondevice.collator.TimeParamsCollator;
 import com.adobe.target.edge.client.service.TelemetryService;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonGenerator;
@@ -41,7 +42,9 @@ import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
-import java.text.SimpleDateFormat;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.util.*;
 import kong.unirest.*;
 import org.apache.http.HttpStatus;
@@ -429,18 +432,7 @@ public class TargetTestDeliveryRequestUtils {
   }
 
   public static ParamsCollator getSpecificTimeCollator(final long now) {
-    return (deliveryRequest, requestDetails) -> {
-      Map<String, Object> time = new HashMap<>();
-      time.put("current_timestamp", now);
-      Date nowDate = new Date(now);
-      SimpleDateFormat dayFormat = new SimpleDateFormat("u");
-      dayFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
-      time.put("current_day", dayFormat.format(nowDate));
-      SimpleDateFormat timeFormat = new SimpleDateFormat("HHmm");
-      timeFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
-      time.put("current_time", timeFormat.format(nowDate));
-      return time;
-    };
+    return new TimeParamsCollator(Clock.fixed(Instant.ofEpochMilli(now), ZoneOffset.UTC));
   }
 
   public static void fileRuleLoader(String fileName, OnDeviceDecisioningService localService)